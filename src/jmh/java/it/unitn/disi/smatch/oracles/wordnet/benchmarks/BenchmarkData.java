@@ -0,0 +1,398 @@
+package it.unitn.disi.smatch.oracles.wordnet.benchmarks;
+
+import it.unitn.disi.smatch.SMatchException;
+import it.unitn.disi.smatch.data.ling.ISense;
+import it.unitn.disi.smatch.oracles.ISenseMatcher;
+import it.unitn.disi.smatch.oracles.SenseMatcherException;
+import it.unitn.disi.smatch.oracles.wordnet.*;
+import net.sf.extjwnl.JWNLException;
+import net.sf.extjwnl.data.*;
+import net.sf.extjwnl.dictionary.Dictionary;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Data of the benchmarks: WordNet cache files and samples of labels and senses.
+ * <p/>
+ * The benchmarks run against the WordNet sample bundled with them, see {@link WordNetSample}, so they need neither
+ * a WordNet installation nor a network connection. The smatch.benchmark.wordnet system property gives the extJWNL
+ * properties file of another WordNet, such as a full one. The cache files are created on first use, in seconds for
+ * the sample, in a subdirectory per WordNet of the directory given by the smatch.benchmark.dir system property,
+ * target/benchmark-data by default, and are reused by later runs.
+ * <p/>
+ * Samples are drawn with fixed seeds from the dictionary order, so the same labels and senses are benchmarked
+ * in every run.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public final class BenchmarkData {
+
+    /**
+     * Seed of all samples.
+     */
+    public static final long SEED = 20141017L;
+
+    /**
+     * Amount of items in each sample, a power of two, so benchmarks cycle through a sample with a mask.
+     */
+    public static final int SAMPLE_SIZE = 1 << 10;
+
+    private static final String[] RELATIONS = {"adj_syn", "adj_opp", "noun_mg", "noun_opp", "adv_opp", "verb_mg", "nominalizations"};
+
+    // regular suffixes of inflected forms
+    private static final String[] SUFFIXES = {"s", "es", "ed", "ing", "er", "est"};
+
+    private static String propertiesFile;
+    private static Dictionary dictionary;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Returns the directory of the cache files of the benchmarked WordNet.
+     *
+     * @return directory
+     */
+    public static File getDirectory() {
+        String wordNet = System.getProperty("smatch.benchmark.wordnet");
+        File result = new File(System.getProperty("smatch.benchmark.dir", "target/benchmark-data"),
+                null == wordNet ? "wn-sample" : new File(wordNet).getName().replaceFirst("\\.[^.]*$", ""));
+        if (!result.isDirectory() && !result.mkdirs()) {
+            throw new IllegalStateException("Cannot create benchmark data directory: " + result.getPath());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the extJWNL properties file of the benchmarked WordNet. The properties of the bundled sample
+     * are copied from the classpath into the data directory, the sample itself is read from the classpath.
+     *
+     * @return properties file name
+     * @throws SMatchException SMatchException
+     */
+    public static synchronized String getPropertiesFile() throws SMatchException {
+        if (null == propertiesFile) {
+            String wordNet = System.getProperty("smatch.benchmark.wordnet");
+            if (null != wordNet) {
+                propertiesFile = wordNet;
+            } else {
+                File file = new File(getDirectory(), "res_properties.xml");
+                try (InputStream in = BenchmarkData.class.getResourceAsStream(WordNetSample.PROPERTIES)) {
+                    if (null == in) {
+                        throw new SMatchException("Resource not found: " + WordNetSample.PROPERTIES);
+                    }
+                    Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException e) {
+                    throw new SMatchException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+                }
+                propertiesFile = file.getPath();
+            }
+        }
+        return propertiesFile;
+    }
+
+    public static synchronized Dictionary getDictionary() throws SMatchException {
+        if (null == dictionary) {
+            dictionary = WordNet.getDictionary(getPropertiesFile());
+        }
+        return dictionary;
+    }
+
+    /**
+     * Returns the relation files of the layout, creating them if needed.
+     *
+     * @param layout layout of the relation files
+     * @return file names in the order of the {@link InMemoryWordNetBinaryArray} constructor arguments
+     * @throws SMatchException SMatchException
+     */
+    public static synchronized String[] getRelationFiles(InMemoryWordNetBinaryArray.Layout layout) throws SMatchException {
+        File directory = new File(getDirectory(), layout.name().toLowerCase());
+        String[] result = new String[RELATIONS.length];
+        boolean exist = true;
+        for (int i = 0; i < RELATIONS.length; i++) {
+            File file = new File(directory, RELATIONS[i] + ".bin");
+            result[i] = file.getPath();
+            exist = exist && file.isFile();
+        }
+        if (!exist) {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new SMatchException("Cannot create benchmark data directory: " + directory.getPath());
+            }
+            InMemoryWordNetBinaryArray.createWordNetCaches(getPropertiesFile(), result[0], result[1], result[2], result[3],
+                    result[4], result[5], result[6], layout, false, Runtime.getRuntime().availableProcessors());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the relation files of {@link InMemoryWordNetIntervals}, creating them if needed: the sorted relation
+     * files with the noun and verb hypernyms replaced by their interval labellings.
+     *
+     * @return file names in the order of the {@link InMemoryWordNetIntervals} constructor arguments
+     * @throws SMatchException SMatchException
+     */
+    public static synchronized String[] getIntervalFiles() throws SMatchException {
+        String[] result = getRelationFiles(InMemoryWordNetBinaryArray.Layout.SORTED).clone();
+        File directory = new File(getDirectory(), "intervals");
+        File nouns = new File(directory, "noun_intervals.bin");
+        File verbs = new File(directory, "verb_intervals.bin");
+        if (!nouns.isFile() || !verbs.isFile()) {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new SMatchException("Cannot create benchmark data directory: " + directory.getPath());
+            }
+            InMemoryWordNetIntervals.createWordNetCaches(getPropertiesFile(), nouns.getPath(), verbs.getPath());
+        }
+        result[2] = nouns.getPath();
+        result[5] = verbs.getPath();
+        return result;
+    }
+
+    public static InMemoryWordNetBinaryArray getMatcher(InMemoryWordNetBinaryArray.Index index,
+                                                        InMemoryWordNetBinaryArray.Layout layout) throws SMatchException {
+        String[] files = getRelationFiles(layout);
+        return new InMemoryWordNetBinaryArray(files[0], files[1], files[2], files[3], files[4], files[5], files[6], index);
+    }
+
+    /**
+     * Returns the multiwords file, creating it if needed.
+     *
+     * @return file name
+     * @throws SMatchException SMatchException
+     */
+    public static synchronized String getMultiwordsFile() throws SMatchException {
+        File file = new File(getDirectory(), "multiwords.bin");
+        if (!file.isFile()) {
+            WordNet.createWordNetCaches(getPropertiesFile(), file.getPath());
+        }
+        return file.getPath();
+    }
+
+    /**
+     * Returns the lexicon file, creating it if needed.
+     *
+     * @return file name
+     * @throws SMatchException SMatchException
+     */
+    public static synchronized String getLexiconFile() throws SMatchException {
+        File file = new File(getDirectory(), "lexicon.bin");
+        if (!file.isFile()) {
+            LexiconOracle.createLexicon(getPropertiesFile(), file.getPath());
+        }
+        return file.getPath();
+    }
+
+    /**
+     * Samples labels: single-word lemmas as they are, half of them with a regular suffix appended,
+     * and some multiword lemmas.
+     *
+     * @param seed seed
+     * @return labels
+     * @throws SMatchException SMatchException
+     */
+    public static List<String> getLabels(long seed) throws SMatchException {
+        Random random = new Random(seed);
+        List<String> lemmas = sample(getLemmas(), SAMPLE_SIZE, random);
+        List<String> result = new ArrayList<>(lemmas.size());
+        for (String lemma : lemmas) {
+            if (-1 == lemma.indexOf(' ') && random.nextBoolean()) {
+                result.add(lemma + SUFFIXES[random.nextInt(SUFFIXES.length)]);
+            } else {
+                result.add(lemma);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Samples the first tokens of multiwords.
+     *
+     * @param seed seed
+     * @return tokens
+     * @throws SMatchException SMatchException
+     */
+    public static List<String> getMultiwordBeginnings(long seed) throws SMatchException {
+        List<String> beginnings = new ArrayList<>();
+        for (String lemma : getLemmas()) {
+            int space = lemma.indexOf(' ');
+            if (-1 < space) {
+                beginnings.add(lemma.substring(0, space));
+            }
+        }
+        return sample(beginnings, SAMPLE_SIZE, new Random(seed));
+    }
+
+    /**
+     * Samples the senses of concepts. Each concept has the senses of a sampled label, so the sense lists
+     * have the sizes found in real labels. Senses of all samples resolve their synsets in {@link #getDictionary()},
+     * so the matchers which traverse WordNet can use them.
+     *
+     * @param seed seed
+     * @return senses of each concept
+     * @throws SMatchException SMatchException
+     */
+    public static List<List<ISense>> getConcepts(long seed) throws SMatchException {
+        List<List<ISense>> result = new ArrayList<>(SAMPLE_SIZE);
+        try {
+            Random random = new Random(seed);
+            List<String> lemmas = getLemmas();
+            while (result.size() < SAMPLE_SIZE) {
+                IndexWordSet indexWords = getDictionary().lookupAllIndexWords(lemmas.get(random.nextInt(lemmas.size())));
+                List<ISense> senses = new ArrayList<>();
+                for (IndexWord indexWord : indexWords.getIndexWordArray()) {
+                    for (long offset : indexWord.getSynsetOffsets()) {
+                        senses.add(new WordNetSense(indexWord.getPOS(), offset, getDictionary()));
+                    }
+                }
+                result.add(senses);
+            }
+        } catch (JWNLException e) {
+            throw new SMatchException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+        }
+        return result;
+    }
+
+    /**
+     * Samples sense pairs, all of which are related or all of which are not, according to the matcher.
+     * Related pairs are drawn from the pointers of the given type, unrelated ones from random synsets
+     * of the part of speech.
+     *
+     * @param seed     seed
+     * @param matcher  matcher which checks the relation
+     * @param relation relation to check
+     * @param pos      part of speech of the senses
+     * @param type     pointer type of the related pairs, null to draw unrelated pairs
+     * @param reverse  whether the source of a related pair is the pointer target
+     * @return pairs of senses, source and target
+     * @throws SMatchException SMatchException
+     */
+    public static ISense[][] getPairs(long seed, ISenseMatcher matcher, Relation relation,
+                                      POS pos, PointerType type, boolean reverse) throws SMatchException {
+        List<ISense[]> result = new ArrayList<>();
+        try {
+            Random random = new Random(seed);
+            List<Synset> synsets = sample(getSynsets(pos), 16 * SAMPLE_SIZE, random);
+            for (int i = 0; i < synsets.size() && result.size() < SAMPLE_SIZE; i++) {
+                Synset source = synsets.get(i);
+                List<Synset> targets = new ArrayList<>();
+                if (null == type) {
+                    targets.add(synsets.get(random.nextInt(synsets.size())));
+                } else {
+                    for (Pointer pointer : source.getPointers(type)) {
+                        targets.add(pointer.getTargetSynset());
+                    }
+                }
+                for (Synset target : targets) {
+                    ISense s = new WordNetSense(pos, source.getOffset(), getDictionary());
+                    ISense t = new WordNetSense(target.getPOS(), target.getOffset(), getDictionary());
+                    ISense[] pair = reverse ? new ISense[]{t, s} : new ISense[]{s, t};
+                    if ((null != type) == relation.holds(matcher, pair[0], pair[1]) && result.size() < SAMPLE_SIZE) {
+                        result.add(pair);
+                    }
+                }
+            }
+        } catch (JWNLException | SenseMatcherException e) {
+            throw new SMatchException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+        }
+        if (result.isEmpty()) {
+            throw new SMatchException("No " + (null == type ? "unrelated" : type.getLabel()) + " " + pos.getLabel() + " pairs");
+        }
+        // cycle the pairs up to the sample size
+        for (int i = 0; result.size() < SAMPLE_SIZE; i++) {
+            result.add(result.get(i));
+        }
+        return result.toArray(new ISense[result.size()][]);
+    }
+
+    /**
+     * Matchers over precompiled relation files, all read from the sorted layout. The binary array searches them
+     * with binary search, as by default.
+     */
+    public enum Matcher {
+        BINARY_ARRAY {
+            public KeySetSenseMatcher create() throws SMatchException {
+                return getMatcher(InMemoryWordNetBinaryArray.Index.BINARY_SEARCH, InMemoryWordNetBinaryArray.Layout.SORTED);
+            }
+        },
+        ADJACENCY {
+            public KeySetSenseMatcher create() throws SMatchException {
+                String[] f = getRelationFiles(InMemoryWordNetBinaryArray.Layout.SORTED);
+                return new InMemoryWordNetAdjacency(f[0], f[1], f[2], f[3], f[4], f[5], f[6]);
+            }
+        },
+        INTERVALS {
+            public KeySetSenseMatcher create() throws SMatchException {
+                String[] f = getIntervalFiles();
+                return new InMemoryWordNetIntervals(f[0], f[1], f[2], f[3], f[4], f[5], f[6]);
+            }
+        };
+
+        public abstract KeySetSenseMatcher create() throws SMatchException;
+    }
+
+    /**
+     * Relations checked by a sense matcher.
+     */
+    public enum Relation {
+        SYNONYM {
+            public boolean holds(ISenseMatcher matcher, ISense source, ISense target) throws SenseMatcherException {
+                return matcher.isSourceSynonymTarget(source, target);
+            }
+        },
+        LESS_GENERAL {
+            public boolean holds(ISenseMatcher matcher, ISense source, ISense target) throws SenseMatcherException {
+                return matcher.isSourceLessGeneralThanTarget(source, target);
+            }
+        },
+        MORE_GENERAL {
+            public boolean holds(ISenseMatcher matcher, ISense source, ISense target) throws SenseMatcherException {
+                return matcher.isSourceMoreGeneralThanTarget(source, target);
+            }
+        },
+        OPPOSITE {
+            public boolean holds(ISenseMatcher matcher, ISense source, ISense target) throws SenseMatcherException {
+                return matcher.isSourceOppositeToTarget(source, target);
+            }
+        };
+
+        public abstract boolean holds(ISenseMatcher matcher, ISense source, ISense target) throws SenseMatcherException;
+    }
+
+    private static List<String> getLemmas() throws SMatchException {
+        List<String> result = new ArrayList<>();
+        try {
+            for (POS pos : POS.values()) {
+                Iterator<IndexWord> i = getDictionary().getIndexWordIterator(pos);
+                while (i.hasNext()) {
+                    result.add(i.next().getLemma());
+                }
+            }
+        } catch (JWNLException e) {
+            throw new SMatchException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+        }
+        return result;
+    }
+
+    private static List<Synset> getSynsets(POS pos) throws SMatchException {
+        List<Synset> result = new ArrayList<>();
+        try {
+            Iterator<Synset> i = getDictionary().getSynsetIterator(pos);
+            while (i.hasNext()) {
+                result.add(i.next());
+            }
+        } catch (JWNLException e) {
+            throw new SMatchException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+        }
+        return result;
+    }
+
+    private static <T> List<T> sample(List<T> items, int size, Random random) {
+        List<T> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(items.get(random.nextInt(items.size())));
+        }
+        return result;
+    }
+}
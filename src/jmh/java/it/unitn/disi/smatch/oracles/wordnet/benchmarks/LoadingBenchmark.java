@@ -0,0 +1,121 @@
+package it.unitn.disi.smatch.oracles.wordnet.benchmarks;
+
+import it.unitn.disi.smatch.SMatchException;
+import it.unitn.disi.smatch.oracles.wordnet.InMemoryWordNetAdjacency;
+import it.unitn.disi.smatch.oracles.wordnet.InMemoryWordNetBinaryArray;
+import it.unitn.disi.smatch.oracles.wordnet.InMemoryWordNetIntervals;
+import it.unitn.disi.smatch.oracles.wordnet.MultiwordIndex;
+import it.unitn.disi.smatch.oracles.wordnet.WordNetLexicon;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks loading of the cache files: the relation files of each index and layout, the same files
+ * as adjacency lists, the interval labellings, the multiwords and the lexicon. Each measurement is a single load,
+ * as at startup, in a fresh fork.
+ * <p/>
+ * Each benchmark has its own state with only the parameters its files depend on, so the other files are loaded
+ * once per fork, not once per index and layout.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 5, jvmArgsAppend = {"-Xmx2g"})
+public class LoadingBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Relations {
+
+        @Param({"BINARY_SEARCH", "HASH"})
+        public InMemoryWordNetBinaryArray.Index index;
+
+        @Param({"SORTED", "BLOCKED", "COMPRESSED"})
+        public InMemoryWordNetBinaryArray.Layout layout;
+
+        private String[] fileNames;
+
+        @Setup
+        public void setUp() throws SMatchException {
+            fileNames = BenchmarkData.getRelationFiles(layout);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Adjacency {
+
+        @Param({"SORTED", "BLOCKED", "COMPRESSED"})
+        public InMemoryWordNetBinaryArray.Layout layout;
+
+        private String[] fileNames;
+
+        @Setup
+        public void setUp() throws SMatchException {
+            fileNames = BenchmarkData.getRelationFiles(layout);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Intervals {
+
+        private String[] fileNames;
+
+        @Setup
+        public void setUp() throws SMatchException {
+            fileNames = BenchmarkData.getIntervalFiles();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Multiwords {
+
+        private String fileName;
+
+        @Setup
+        public void setUp() throws SMatchException {
+            fileName = BenchmarkData.getMultiwordsFile();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Lexicon {
+
+        private String fileName;
+
+        @Setup
+        public void setUp() throws SMatchException {
+            fileName = BenchmarkData.getLexiconFile();
+        }
+    }
+
+    @Benchmark
+    public InMemoryWordNetBinaryArray loadRelations(Relations relations) throws SMatchException {
+        String[] f = relations.fileNames;
+        return new InMemoryWordNetBinaryArray(f[0], f[1], f[2], f[3], f[4], f[5], f[6], relations.index);
+    }
+
+    @Benchmark
+    public InMemoryWordNetAdjacency loadAdjacency(Adjacency adjacency) throws SMatchException {
+        String[] f = adjacency.fileNames;
+        return new InMemoryWordNetAdjacency(f[0], f[1], f[2], f[3], f[4], f[5], f[6]);
+    }
+
+    @Benchmark
+    public InMemoryWordNetIntervals loadIntervals(Intervals intervals) throws SMatchException {
+        String[] f = intervals.fileNames;
+        return new InMemoryWordNetIntervals(f[0], f[1], f[2], f[3], f[4], f[5], f[6]);
+    }
+
+    @Benchmark
+    public MultiwordIndex loadMultiwords(Multiwords multiwords) throws SMatchException {
+        return MultiwordIndex.read(multiwords.fileName);
+    }
+
+    @Benchmark
+    public WordNetLexicon loadLexicon(Lexicon lexicon) throws SMatchException {
+        return WordNetLexicon.read(lexicon.fileName);
+    }
+}
@@ -0,0 +1,73 @@
+package it.unitn.disi.smatch.oracles.wordnet.benchmarks;
+
+import it.unitn.disi.smatch.SMatchException;
+import it.unitn.disi.smatch.data.ling.ISense;
+import it.unitn.disi.smatch.oracles.ILinguisticOracle;
+import it.unitn.disi.smatch.oracles.LinguisticOracleException;
+import it.unitn.disi.smatch.oracles.wordnet.LexiconOracle;
+import it.unitn.disi.smatch.oracles.wordnet.WordNet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the linguistic oracles: the dictionary backed {@link WordNet} and the {@link LexiconOracle}.
+ * Labels are sampled lemmas, some of them inflected, and multiword beginnings are first tokens of multiwords.
+ * <p/>
+ * The label caches of WordNet are disabled, with a capacity of one, so lookups are measured rather than
+ * cache hits.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+public class OracleBenchmark {
+
+    private static final int MASK = BenchmarkData.SAMPLE_SIZE - 1;
+
+    @Param({"wordnet", "lexicon"})
+    public String oracleName;
+
+    private ILinguisticOracle oracle;
+
+    private List<String> labels;
+    private List<String> beginnings;
+
+    private int next;
+
+    @Setup
+    public void setUp() throws SMatchException {
+        String multiwordsFileName = BenchmarkData.getMultiwordsFile();
+        if ("wordnet".equals(oracleName)) {
+            oracle = new WordNet(BenchmarkData.getPropertiesFile(), multiwordsFileName, true, 1, 1, 1);
+        } else if ("lexicon".equals(oracleName)) {
+            oracle = new LexiconOracle(BenchmarkData.getLexiconFile(), multiwordsFileName);
+        } else {
+            throw new SMatchException("Unknown oracle: " + oracleName);
+        }
+        labels = BenchmarkData.getLabels(BenchmarkData.SEED);
+        beginnings = BenchmarkData.getMultiwordBeginnings(BenchmarkData.SEED);
+        // loads the multiwords, which are loaded on first use
+        oracle.getMultiwords(beginnings.get(0));
+    }
+
+    @Benchmark
+    public List<ISense> getSenses() throws LinguisticOracleException {
+        return oracle.getSenses(labels.get(next++ & MASK));
+    }
+
+    @Benchmark
+    public List<String> getBaseForms() throws LinguisticOracleException {
+        return oracle.getBaseForms(labels.get(next++ & MASK));
+    }
+
+    @Benchmark
+    public List<List<String>> getMultiwords() throws LinguisticOracleException {
+        return oracle.getMultiwords(beginnings.get(next++ & MASK));
+    }
+}
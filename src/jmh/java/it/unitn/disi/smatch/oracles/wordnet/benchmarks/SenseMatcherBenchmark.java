@@ -0,0 +1,170 @@
+package it.unitn.disi.smatch.oracles.wordnet.benchmarks;
+
+import it.unitn.disi.smatch.SMatchException;
+import it.unitn.disi.smatch.data.ling.ISense;
+import it.unitn.disi.smatch.oracles.ISenseMatcher;
+import it.unitn.disi.smatch.oracles.SenseMatcherException;
+import it.unitn.disi.smatch.oracles.wordnet.InMemoryWordNetBinaryArray;
+import it.unitn.disi.smatch.oracles.wordnet.WordNet;
+import it.unitn.disi.smatch.oracles.wordnet.benchmarks.BenchmarkData.Matcher;
+import it.unitn.disi.smatch.oracles.wordnet.benchmarks.BenchmarkData.Relation;
+import net.sf.extjwnl.data.POS;
+import net.sf.extjwnl.data.PointerType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the sense matchers: relations between the senses of concepts, and each relation check on related (hit)
+ * and unrelated (miss) sense pairs. Each nested class benchmarks one matcher:
+ * {@link BinaryArray} over each index and layout of the relation files, {@link Adjacency}, {@link Intervals},
+ * and {@link Precompiled}, the {@link WordNet} oracle answering from each of them.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+public abstract class SenseMatcherBenchmark {
+
+    private static final int MASK = BenchmarkData.SAMPLE_SIZE - 1;
+
+    private ISenseMatcher matcher;
+
+    private List<List<ISense>> sources;
+    private List<List<ISense>> targets;
+
+    private ISense[][] synonymHits;
+    private ISense[][] synonymMisses;
+    private ISense[][] lessGeneralHits;
+    private ISense[][] lessGeneralMisses;
+    private ISense[][] moreGeneralHits;
+    private ISense[][] moreGeneralMisses;
+    private ISense[][] oppositeHits;
+    private ISense[][] oppositeMisses;
+
+    private int next;
+
+    @Setup
+    public void setUp() throws SMatchException {
+        matcher = createMatcher();
+        sources = BenchmarkData.getConcepts(BenchmarkData.SEED);
+        targets = BenchmarkData.getConcepts(BenchmarkData.SEED + 1);
+
+        long seed = BenchmarkData.SEED;
+        synonymHits = BenchmarkData.getPairs(seed, matcher, Relation.SYNONYM, POS.ADJECTIVE, PointerType.SIMILAR_TO, false);
+        synonymMisses = BenchmarkData.getPairs(seed, matcher, Relation.SYNONYM, POS.ADJECTIVE, null, false);
+        lessGeneralHits = BenchmarkData.getPairs(seed, matcher, Relation.LESS_GENERAL, POS.NOUN, PointerType.HYPERNYM, false);
+        lessGeneralMisses = BenchmarkData.getPairs(seed, matcher, Relation.LESS_GENERAL, POS.NOUN, null, false);
+        moreGeneralHits = BenchmarkData.getPairs(seed, matcher, Relation.MORE_GENERAL, POS.NOUN, PointerType.HYPERNYM, true);
+        moreGeneralMisses = BenchmarkData.getPairs(seed, matcher, Relation.MORE_GENERAL, POS.NOUN, null, false);
+        oppositeHits = BenchmarkData.getPairs(seed, matcher, Relation.OPPOSITE, POS.ADJECTIVE, PointerType.ANTONYM, false);
+        oppositeMisses = BenchmarkData.getPairs(seed, matcher, Relation.OPPOSITE, POS.ADJECTIVE, null, false);
+    }
+
+    protected abstract ISenseMatcher createMatcher() throws SMatchException;
+
+    @Benchmark
+    public char getRelation() throws SenseMatcherException {
+        int i = next++ & MASK;
+        return matcher.getRelation(sources.get(i), targets.get(i));
+    }
+
+    @Benchmark
+    public boolean isSourceSynonymTargetHit() throws SenseMatcherException {
+        ISense[] pair = synonymHits[next++ & MASK];
+        return matcher.isSourceSynonymTarget(pair[0], pair[1]);
+    }
+
+    @Benchmark
+    public boolean isSourceSynonymTargetMiss() throws SenseMatcherException {
+        ISense[] pair = synonymMisses[next++ & MASK];
+        return matcher.isSourceSynonymTarget(pair[0], pair[1]);
+    }
+
+    @Benchmark
+    public boolean isSourceLessGeneralThanTargetHit() throws SenseMatcherException {
+        ISense[] pair = lessGeneralHits[next++ & MASK];
+        return matcher.isSourceLessGeneralThanTarget(pair[0], pair[1]);
+    }
+
+    @Benchmark
+    public boolean isSourceLessGeneralThanTargetMiss() throws SenseMatcherException {
+        ISense[] pair = lessGeneralMisses[next++ & MASK];
+        return matcher.isSourceLessGeneralThanTarget(pair[0], pair[1]);
+    }
+
+    @Benchmark
+    public boolean isSourceMoreGeneralThanTargetHit() throws SenseMatcherException {
+        ISense[] pair = moreGeneralHits[next++ & MASK];
+        return matcher.isSourceMoreGeneralThanTarget(pair[0], pair[1]);
+    }
+
+    @Benchmark
+    public boolean isSourceMoreGeneralThanTargetMiss() throws SenseMatcherException {
+        ISense[] pair = moreGeneralMisses[next++ & MASK];
+        return matcher.isSourceMoreGeneralThanTarget(pair[0], pair[1]);
+    }
+
+    @Benchmark
+    public boolean isSourceOppositeToTargetHit() throws SenseMatcherException {
+        ISense[] pair = oppositeHits[next++ & MASK];
+        return matcher.isSourceOppositeToTarget(pair[0], pair[1]);
+    }
+
+    @Benchmark
+    public boolean isSourceOppositeToTargetMiss() throws SenseMatcherException {
+        ISense[] pair = oppositeMisses[next++ & MASK];
+        return matcher.isSourceOppositeToTarget(pair[0], pair[1]);
+    }
+
+    public static class BinaryArray extends SenseMatcherBenchmark {
+
+        @Param({"BINARY_SEARCH", "HASH"})
+        public InMemoryWordNetBinaryArray.Index index;
+
+        @Param({"SORTED", "BLOCKED", "COMPRESSED"})
+        public InMemoryWordNetBinaryArray.Layout layout;
+
+        @Override
+        protected ISenseMatcher createMatcher() throws SMatchException {
+            return BenchmarkData.getMatcher(index, layout);
+        }
+    }
+
+    public static class Adjacency extends SenseMatcherBenchmark {
+
+        @Override
+        protected ISenseMatcher createMatcher() throws SMatchException {
+            return Matcher.ADJACENCY.create();
+        }
+    }
+
+    public static class Intervals extends SenseMatcherBenchmark {
+
+        @Override
+        protected ISenseMatcher createMatcher() throws SMatchException {
+            return Matcher.INTERVALS.create();
+        }
+    }
+
+    /**
+     * The oracle answering from precompiled relations. Its sense relation cache is reduced to a single set,
+     * so the precompiled relations are measured rather than cache hits.
+     */
+    public static class Precompiled extends SenseMatcherBenchmark {
+
+        @Param({"BINARY_ARRAY", "ADJACENCY", "INTERVALS"})
+        public Matcher relations;
+
+        @Override
+        protected ISenseMatcher createMatcher() throws SMatchException {
+            return new WordNet(BenchmarkData.getPropertiesFile(), BenchmarkData.getMultiwordsFile(), true, 1, 1, 1,
+                    relations.create());
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package it.unitn.disi.smatch.oracles.wordnet.benchmarks;
+
+import it.unitn.disi.smatch.SMatchException;
+import it.unitn.disi.smatch.oracles.wordnet.WordNet;
+import net.sf.extjwnl.JWNLException;
+import net.sf.extjwnl.data.*;
+import net.sf.extjwnl.dictionary.Dictionary;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Creates the WordNet sample bundled with the benchmarks from a full WordNet, so the benchmarks run offline
+ * against a dictionary which takes seconds, not minutes, to compile into cache files.
+ * <p/>
+ * The sample starts from synsets drawn with a fixed seed from each part of speech. It adds the synsets these point to
+ * with the relations the matchers check, so that related pairs exist for each relation, and then all
+ * hypernyms up to the roots, so that the hierarchies have their real depth. The synsets keep their words, glosses
+ * and the pointers between synsets of the sample, and the exceptions of their lemmas are kept for the morphology.
+ * <p/>
+ * Usage, with extjwnl-data-wn31 on the classpath or the properties of another WordNet:
+ * <pre>
+ * java -cp target/benchmarks.jar:extjwnl-data-wn31.jar it.unitn.disi.smatch.oracles.wordnet.benchmarks.WordNetSample \
+ *     src/jmh/resources/it/unitn/disi/smatch/oracles/wordnet/benchmarks/wn-sample [properties]
+ * </pre>
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class WordNetSample {
+
+    /**
+     * Resource path of the bundled sample.
+     */
+    public static final String PATH = "/it/unitn/disi/smatch/oracles/wordnet/benchmarks/wn-sample";
+
+    /**
+     * Resource path of the extJWNL properties of the bundled sample.
+     */
+    public static final String PROPERTIES = PATH + "/res_properties.xml";
+
+    // synsets drawn from each part of speech, in the order of POS.getAllPOS()
+    private static final int[] SEEDS = {1000, 300, 400, 100};
+
+    // relations checked by the matchers, followed one step from the drawn synsets
+    private static final PointerType[] RELATIONS = {PointerType.SIMILAR_TO, PointerType.ANTONYM,
+            PointerType.DERIVATION, PointerType.PART_HOLONYM, PointerType.MEMBER_HOLONYM,
+            PointerType.SUBSTANCE_HOLONYM, PointerType.PART_MERONYM, PointerType.MEMBER_MERONYM,
+            PointerType.SUBSTANCE_MERONYM};
+
+    private static final PointerType[] HYPERNYMS = {PointerType.HYPERNYM, PointerType.INSTANCE_HYPERNYM};
+
+    public static void main(String[] args) throws SMatchException {
+        if (1 > args.length) {
+            System.err.println("Usage: WordNetSample output-directory [extJWNL properties of the source WordNet]");
+            System.exit(1);
+        }
+        create(WordNet.getDictionary(1 < args.length ? args[1] : null), new File(args[0]));
+    }
+
+    /**
+     * Writes a sample of the source dictionary into the directory, in the Princeton format.
+     *
+     * @param source    source dictionary
+     * @param directory output directory
+     * @throws SMatchException SMatchException
+     */
+    public static void create(Dictionary source, File directory) throws SMatchException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new SMatchException("Cannot create sample directory: " + directory.getPath());
+        }
+        try {
+            Set<Synset> synsets = select(source);
+            byte[] properties = getWriterProperties(directory);
+            // drops the previous sample, which would otherwise be edited in place
+            Dictionary.getInstance(new ByteArrayInputStream(properties)).delete();
+            Dictionary target = Dictionary.getInstance(new ByteArrayInputStream(properties));
+            target.edit();
+            copy(source, target, synsets);
+            target.save();
+            target.close();
+        } catch (JWNLException | IOException e) {
+            throw new SMatchException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static Set<Synset> select(Dictionary source) throws JWNLException {
+        Random random = new Random(BenchmarkData.SEED);
+        Set<Synset> result = new LinkedHashSet<>();
+        List<POS> poses = POS.getAllPOS();
+        for (int i = 0; i < poses.size(); i++) {
+            List<Synset> synsets = new ArrayList<>();
+            Iterator<Synset> iterator = source.getSynsetIterator(poses.get(i));
+            while (iterator.hasNext()) {
+                synsets.add(iterator.next());
+            }
+            for (int j = 0; j < SEEDS[i]; j++) {
+                result.add(synsets.get(random.nextInt(synsets.size())));
+            }
+        }
+
+        for (Synset synset : new ArrayList<>(result)) {
+            for (PointerType type : RELATIONS) {
+                for (Pointer pointer : synset.getPointers(type)) {
+                    result.add(pointer.getTargetSynset());
+                }
+            }
+        }
+
+        Deque<Synset> stack = new ArrayDeque<>(result);
+        while (!stack.isEmpty()) {
+            Synset synset = stack.pop();
+            for (PointerType type : HYPERNYMS) {
+                for (Pointer pointer : synset.getPointers(type)) {
+                    Synset hypernym = pointer.getTargetSynset();
+                    if (result.add(hypernym)) {
+                        stack.push(hypernym);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void copy(Dictionary source, Dictionary target, Set<Synset> synsets) throws JWNLException {
+        // the original offsets are unique, the target assigns new ones on save
+        Map<Synset, Synset> copies = new HashMap<>();
+        Set<String> lemmas = new HashSet<>();
+        for (Synset synset : synsets) {
+            Synset copy;
+            if (synset instanceof VerbSynset) {
+                copy = new VerbSynset(target, synset.getOffset());
+                copy.setVerbFrameFlags(synset.getVerbFrameFlags());
+            } else if (synset instanceof AdjectiveSynset) {
+                copy = new AdjectiveSynset(target, synset.getOffset());
+                copy.setIsAdjectiveCluster(synset.isAdjectiveCluster());
+            } else {
+                copy = new Synset(target, synset.getPOS(), synset.getOffset());
+            }
+            copy.setGloss(synset.getGloss());
+            copy.setLexFileNum(synset.getLexFileNum());
+            for (Word word : synset.getWords()) {
+                Word wordCopy;
+                if (word instanceof Verb) {
+                    wordCopy = new Verb(target, copy, word.getIndex(), word.getLemma(), ((Verb) word).getVerbFrameFlags());
+                } else if (word instanceof Adjective) {
+                    wordCopy = new Adjective(target, copy, word.getIndex(), word.getLemma(), ((Adjective) word).getAdjectivePosition());
+                } else {
+                    wordCopy = new Word(target, copy, word.getIndex(), word.getLemma());
+                }
+                wordCopy.setLexId(word.getLexId());
+                wordCopy.setUseCount(word.getUseCount());
+                copy.getWords().add(wordCopy);
+                lemmas.add(synset.getPOS().getKey() + word.getLemma().toLowerCase());
+            }
+            copies.put(synset, copy);
+        }
+
+        for (Synset synset : synsets) {
+            Synset copy = copies.get(synset);
+            for (Pointer pointer : synset.getPointers()) {
+                Synset targetCopy = copies.get(pointer.getTargetSynset());
+                if (null != targetCopy) {
+                    PointerTarget from = copy;
+                    PointerTarget to = targetCopy;
+                    if (pointer.isLexical()) {
+                        from = copy.getWords().get(pointer.getSourceIndex() - 1);
+                        to = targetCopy.getWords().get(pointer.getTargetIndex() - 1);
+                    }
+                    copy.getPointers().add(new Pointer(pointer.getType(), from, to));
+                }
+            }
+        }
+
+        for (POS pos : POS.getAllPOS()) {
+            Iterator<Exc> iterator = source.getExceptionIterator(pos);
+            while (iterator.hasNext()) {
+                Exc exc = iterator.next();
+                for (String exception : exc.getExceptions()) {
+                    if (lemmas.contains(pos.getKey() + exception.toLowerCase())) {
+                        new Exc(target, pos, exc.getLemma(), new ArrayList<>(exc.getExceptions()));
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the properties of the bundled sample, changed to write files into the directory.
+     */
+    private static byte[] getWriterProperties(File directory) throws IOException {
+        InputStream in = WordNetSample.class.getResourceAsStream(PROPERTIES);
+        if (null == in) {
+            throw new FileNotFoundException("Resource not found: " + PROPERTIES);
+        }
+        StringBuilder result = new StringBuilder();
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            char[] buffer = new char[4096];
+            for (int read = reader.read(buffer); -1 != read; read = reader.read(buffer)) {
+                result.append(buffer, 0, read);
+            }
+        }
+        String properties = result.toString()
+                // the license of WordNet is kept at the top of the data files, as in the original ones
+                .replace("value=\"net.sf.extjwnl.princeton.file.PrincetonResourceDictionaryFile\"/>",
+                        "value=\"net.sf.extjwnl.princeton.file.PrincetonRandomAccessDictionaryFile\">\n"
+                                + "                <param name=\"write_princeton_header\" value=\"true\"/>\n"
+                                + "            </param>")
+                .replace("value=\"" + PATH + "\"", "value=\"" + directory.getAbsolutePath() + "\"")
+                // the pointers of both directions are copied
+                .replace("<dictionary class=\"net.sf.extjwnl.dictionary.FileBackedDictionary\">",
+                        "<dictionary class=\"net.sf.extjwnl.dictionary.FileBackedDictionary\">\n"
+                                + "        <param name=\"" + Dictionary.EDIT_MANAGE_SYMMETRIC_POINTERS + "\" value=\"false\"/>");
+        return properties.getBytes(StandardCharsets.UTF_8);
+    }
+}
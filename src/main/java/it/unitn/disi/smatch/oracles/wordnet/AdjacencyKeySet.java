@@ -0,0 +1,89 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+import java.util.Arrays;
+
+/**
+ * Key set in compressed sparse row form: sorted distinct source offsets, an offset table into a single array
+ * of targets, and the targets of each source sorted in their own slice. A lookup finds the source
+ * and then searches only its slice, and all targets of a source are read with a single scan.
+ * Offsets are stored as ints, which halves the memory needed compared to packed keys.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+class AdjacencyKeySet implements IKeySet {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final int[] sources;
+    // targets of sources[i] are at targets[starts[i]] .. targets[starts[i + 1] - 1]
+    private final int[] starts;
+    private final int[] targets;
+
+    /**
+     * Constructs an instance from sorted keys.
+     *
+     * @param keys sorted keys
+     */
+    public AdjacencyKeySet(long[] keys) {
+        int sourceCount = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (0 == i || source(keys[i - 1]) != source(keys[i])) {
+                sourceCount++;
+            }
+        }
+        sources = new int[sourceCount];
+        starts = new int[sourceCount + 1];
+        targets = new int[keys.length];
+        int s = -1;
+        for (int i = 0; i < keys.length; i++) {
+            if (0 == i || source(keys[i - 1]) != source(keys[i])) {
+                s++;
+                sources[s] = source(keys[i]);
+                starts[s] = i;
+            }
+            targets[i] = target(keys[i]);
+        }
+        starts[sourceCount] = keys.length;
+    }
+
+    public boolean contains(long key) {
+        if (0 > key) {
+            return false;
+        }
+        int i = Arrays.binarySearch(sources, source(key));
+        return 0 <= i && 0 <= Arrays.binarySearch(targets, starts[i], starts[i + 1], target(key));
+    }
+
+    public int size() {
+        return targets.length;
+    }
+
+    /**
+     * Returns all targets of the source.
+     *
+     * @param source source offset
+     * @return sorted target offsets
+     */
+    public long[] getTargets(long source) {
+        if (0 > source || Integer.MAX_VALUE < source) {
+            return EMPTY;
+        }
+        int i = Arrays.binarySearch(sources, (int) source);
+        if (0 > i) {
+            return EMPTY;
+        }
+        long[] result = new long[starts[i + 1] - starts[i]];
+        for (int j = 0; j < result.length; j++) {
+            result[j] = targets[starts[i] + j];
+        }
+        return result;
+    }
+
+    private static int source(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static int target(long key) {
+        return (int) key;
+    }
+}
@@ -0,0 +1,30 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+import java.util.Arrays;
+
+/**
+ * Key set backed by a sorted on-heap array.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+class ArrayKeySet implements IKeySet {
+
+    private final long[] keys;
+
+    /**
+     * Constructs an instance over sorted keys.
+     *
+     * @param keys sorted keys
+     */
+    public ArrayKeySet(long[] keys) {
+        this.keys = keys;
+    }
+
+    public boolean contains(long key) {
+        return Arrays.binarySearch(keys, key) >= 0;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+}
@@ -0,0 +1,130 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+import java.nio.LongBuffer;
+
+/**
+ * Key set backed by a memory-mapped buffer in a blocked layout of an implicit static B-tree.
+ * Each node holds {@link #BLOCK} keys, exactly one cache line, and has {@link #BLOCK} + 1 children.
+ * A lookup touches about log<sub>9</sub>(n) cache lines instead of log<sub>2</sub>(n) for a binary search
+ * over a sorted array, and compares within a node without branching. This matters most for misses,
+ * which walk the full depth of the tree.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+class BlockedKeySet implements IKeySet {
+
+    /**
+     * Amount of keys in a node.
+     */
+    public static final int BLOCK = 8;
+
+    // fills the unused tail of the last nodes, never a valid key
+    private static final long PADDING = Long.MAX_VALUE;
+
+    private final LongBuffer keys;
+    private final int blocks;
+    private final int size;
+
+    /**
+     * Constructs an instance over keys in blocked layout.
+     *
+     * @param keys keys in blocked layout, including padding
+     * @param size amount of keys, excluding padding
+     */
+    public BlockedKeySet(LongBuffer keys, int size) {
+        this.keys = keys;
+        this.blocks = blocks(size);
+        this.size = size;
+    }
+
+    public boolean contains(long key) {
+        long lowerBound = PADDING;
+        int node = 0;
+        while (node < blocks) {
+            int base = node * BLOCK;
+            int i = 0;
+            for (int j = 0; j < BLOCK; j++) {
+                i += keys.get(base + j) < key ? 1 : 0;
+            }
+            if (i < BLOCK) {
+                lowerBound = keys.get(base + i);
+            }
+            node = child(node, i);
+        }
+        return PADDING != key && key == lowerBound;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the amount of nodes needed for the amount of keys.
+     *
+     * @param size amount of keys
+     * @return amount of nodes
+     */
+    public static int blocks(int size) {
+        return (size + BLOCK - 1) / BLOCK;
+    }
+
+    /**
+     * Rearranges sorted keys into blocked layout.
+     *
+     * @param sorted sorted keys
+     * @return keys in blocked layout, padded to a multiple of {@link #BLOCK}
+     */
+    public static long[] fromSorted(long[] sorted) {
+        long[] result = new long[blocks(sorted.length) * BLOCK];
+        fill(sorted, result, 0, 0);
+        return result;
+    }
+
+    /**
+     * Restores sorted order from keys in blocked layout.
+     *
+     * @param keys keys in blocked layout
+     * @param size amount of keys, excluding padding
+     * @return sorted keys
+     */
+    public static long[] toSorted(LongBuffer keys, int size) {
+        long[] result = new long[size];
+        collect(keys, blocks(size), result, 0, 0);
+        return result;
+    }
+
+    private static int child(int node, int i) {
+        return node * (BLOCK + 1) + i + 1;
+    }
+
+    // in-order traversal of the implicit tree
+    private static int fill(long[] sorted, long[] result, int i, int node) {
+        if (node < result.length / BLOCK) {
+            for (int j = 0; j < BLOCK; j++) {
+                i = fill(sorted, result, i, child(node, j));
+                if (i < sorted.length) {
+                    result[node * BLOCK + j] = sorted[i];
+                    i++;
+                } else {
+                    result[node * BLOCK + j] = PADDING;
+                }
+            }
+            i = fill(sorted, result, i, child(node, BLOCK));
+        }
+        return i;
+    }
+
+    private static int collect(LongBuffer keys, int blocks, long[] result, int i, int node) {
+        if (node < blocks) {
+            for (int j = 0; j < BLOCK; j++) {
+                i = collect(keys, blocks, result, i, child(node, j));
+                if (i < result.length) {
+                    result[i] = keys.get(node * BLOCK + j);
+                    i++;
+                }
+            }
+            i = collect(keys, blocks, result, i, child(node, BLOCK));
+        }
+        return i;
+    }
+}
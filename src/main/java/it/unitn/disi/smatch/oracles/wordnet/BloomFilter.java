@@ -0,0 +1,155 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+import it.unitn.disi.smatch.SMatchException;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Register-blocked Bloom filter over packed sense pair keys. All bits of a key are set in a single 64 bits word,
+ * therefore a check costs one memory access. Answers "definitely absent" or "maybe present".
+ * <p/>
+ * The filter is stored in a flat little-endian binary file next to the relation file:
+ * <pre>
+ * int   magic   (SMWF)
+ * short version
+ * short hashes
+ * long  count
+ * long  words[count]
+ * </pre>
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+class BloomFilter {
+
+    public static final int MAGIC = 0x46574D53; // "SMWF" in little-endian
+    public static final short VERSION = 1;
+
+    /**
+     * Suffix appended to the relation file name to obtain the filter file name.
+     */
+    public static final String SUFFIX = ".bloom";
+
+    // about 1% of false positives with 5 hashes
+    private static final int BITS_PER_KEY = 12;
+    private static final int HASHES = 5;
+    private static final int BITS_PER_HASH = 6;
+
+    private final LongBuffer words;
+    private final int count;
+    private final int hashes;
+
+    private BloomFilter(LongBuffer words, int hashes) {
+        this.words = words;
+        this.count = words.limit();
+        this.hashes = hashes;
+    }
+
+    /**
+     * Checks whether the key might be present.
+     *
+     * @param key packed sense pair key
+     * @return false if the key is definitely absent, true if it might be present
+     */
+    public boolean mightContain(long key) {
+        long hash = HashKeySet.mix(key);
+        long mask = mask(hash, hashes);
+        return mask == (words.get(word(hash, count)) & mask);
+    }
+
+    /**
+     * Creates a filter containing the keys.
+     *
+     * @param keys keys
+     * @return filter
+     */
+    public static BloomFilter create(long[] keys) {
+        int count = (int) Math.max(1, ((long) keys.length * BITS_PER_KEY + Long.SIZE - 1) / Long.SIZE);
+        long[] words = new long[count];
+        for (long key : keys) {
+            long hash = HashKeySet.mix(key);
+            words[word(hash, count)] |= mask(hash, HASHES);
+        }
+        return new BloomFilter(LongBuffer.wrap(words), HASHES);
+    }
+
+    /**
+     * Writes the filter into a file.
+     *
+     * @param fileName file name
+     * @throws SMatchException SMatchException
+     */
+    public void write(String fileName) throws SMatchException {
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "rw")) {
+            file.setLength(0);
+            FileChannel channel = file.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocate(RelationFiles.WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC);
+            buffer.putShort(VERSION);
+            buffer.putShort((short) hashes);
+            buffer.putLong(count);
+            for (int i = 0; i < count; i++) {
+                if (!buffer.hasRemaining()) {
+                    RelationFiles.flush(channel, buffer);
+                }
+                buffer.putLong(words.get(i));
+            }
+            RelationFiles.flush(channel, buffer);
+        } catch (IOException e) {
+            throw new SMatchException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Maps the filter from a file into memory.
+     *
+     * @param fileName file name
+     * @return filter
+     * @throws SMatchException SMatchException
+     */
+    public static BloomFilter read(String fileName) throws SMatchException {
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "r")) {
+            FileChannel channel = file.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(RelationFiles.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && -1 < channel.read(header)) {
+                // read the header fully
+            }
+            header.flip();
+            if (RelationFiles.HEADER_SIZE > header.remaining() || MAGIC != header.getInt()) {
+                throw new SMatchException("Unknown filter file format: " + fileName);
+            }
+            short version = header.getShort();
+            if (VERSION != version) {
+                throw new SMatchException("Unsupported filter file version " + version + ": " + fileName);
+            }
+            short hashes = header.getShort();
+            long count = header.getLong();
+            if (1 > count || Integer.MAX_VALUE / (Long.SIZE / Byte.SIZE) < count
+                    || 1 > hashes || Integer.SIZE / BITS_PER_HASH < hashes) {
+                throw new SMatchException("Invalid filter file header: " + fileName);
+            }
+            ByteBuffer words = RelationFiles.map(channel, RelationFiles.HEADER_SIZE, count * (Long.SIZE / Byte.SIZE));
+            return new BloomFilter(words.asLongBuffer(), hashes);
+        } catch (IOException e) {
+            throw new SMatchException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    // picks the word with the high half of the hash
+    private static int word(long hash, int count) {
+        return (int) (((hash >>> 32) * count) >>> 32);
+    }
+
+    // picks the bits within the word with the low half of the hash
+    private static long mask(long hash, int hashes) {
+        long mask = 0;
+        for (int i = 0; i < hashes; i++) {
+            mask |= 1L << (hash >>> (i * BITS_PER_HASH));
+        }
+        return mask;
+    }
+}
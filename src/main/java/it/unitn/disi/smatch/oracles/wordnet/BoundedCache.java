@@ -0,0 +1,82 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+import com.googlecode.concurrentlinkedhashmap.EvictionListener;
+import com.googlecode.concurrentlinkedhashmap.Weigher;
+import com.googlecode.concurrentlinkedhashmap.Weighers;
+
+/**
+ * Bounded cache which evicts the least recently used entries, with hit, miss and eviction counters.
+ * Safe for concurrent use.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+class BoundedCache<K, V> {
+
+    private final String name;
+    private final long capacity;
+    private final ConcurrentLinkedHashMap<K, V> entries;
+
+    private final CacheCounters counters = new CacheCounters();
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param name     cache name, for statistics
+     * @param capacity maximum amount of entries
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public BoundedCache(String name, long capacity) {
+        this(name, capacity, Weighers.<V>singleton());
+    }
+
+    /**
+     * Constructs an empty cache bounded by the total weight of the values.
+     *
+     * @param name     cache name, for statistics
+     * @param capacity maximum total weight of the values
+     * @param weigher  weigher of the values, at least 1 per value
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public BoundedCache(String name, long capacity, Weigher<? super V> weigher) {
+        if (0 >= capacity) {
+            throw new IllegalArgumentException("Cache capacity must be positive: " + capacity);
+        }
+        this.name = name;
+        this.capacity = capacity;
+        this.entries = new ConcurrentLinkedHashMap.Builder<K, V>()
+                .maximumWeightedCapacity(capacity)
+                .weigher(weigher)
+                .listener(new EvictionListener<K, V>() {
+                    public void onEviction(K key, V value) {
+                        counters.evict();
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Returns the cached value.
+     *
+     * @param key key
+     * @return value or null, if the key is not cached
+     */
+    public V get(K key) {
+        V result = entries.get(key);
+        if (null == result) {
+            counters.miss();
+        } else {
+            counters.hit();
+        }
+        return result;
+    }
+
+    public void put(K key, V value) {
+        entries.put(key, value);
+    }
+
+    public CacheStatistics getStatistics() {
+        return new CacheStatistics(name, capacity, entries.weightedSize(), counters.getHits(),
+                counters.getMisses(), counters.getEvictions());
+    }
+}
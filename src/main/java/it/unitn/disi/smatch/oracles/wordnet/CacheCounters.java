@@ -0,0 +1,38 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+/**
+ * Hit, miss and eviction counters of a cache. Every lookup counts, and lookups run on many threads at once,
+ * so the counters are striped.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+final class CacheCounters {
+
+    private final StripedCounter hits = new StripedCounter();
+    private final StripedCounter misses = new StripedCounter();
+    private final StripedCounter evictions = new StripedCounter();
+
+    public void hit() {
+        hits.increment();
+    }
+
+    public void miss() {
+        misses.increment();
+    }
+
+    public void evict() {
+        evictions.increment();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+}
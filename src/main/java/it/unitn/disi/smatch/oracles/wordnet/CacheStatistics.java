@@ -0,0 +1,94 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+/**
+ * Snapshot of the counters of a cache.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class CacheStatistics {
+
+    private final String cache;
+    private final long capacity;
+    private final long size;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+
+    public CacheStatistics(String cache, long capacity, long size, long hits, long misses, long evictions) {
+        this.cache = cache;
+        this.capacity = capacity;
+        this.size = size;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    /**
+     * Returns the cache name.
+     *
+     * @return the cache name
+     */
+    public String getCache() {
+        return cache;
+    }
+
+    /**
+     * Returns the maximum amount of entries.
+     *
+     * @return the maximum amount of entries
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the amount of entries.
+     *
+     * @return the amount of entries
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns how many lookups were answered from the cache.
+     *
+     * @return how many lookups were answered from the cache
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns how many lookups were not found in the cache.
+     *
+     * @return how many lookups were not found in the cache
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns how many entries were evicted to keep the cache within its capacity.
+     *
+     * @return how many entries were evicted
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the share of lookups answered from the cache.
+     *
+     * @return the hit rate, 0 if there were no lookups
+     */
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return 0 == lookups ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return cache + ": size=" + size + "/" + capacity + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions;
+    }
+}
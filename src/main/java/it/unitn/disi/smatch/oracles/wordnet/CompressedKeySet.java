@@ -0,0 +1,185 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Key set backed by a compressed memory-mapped buffer. Sorted keys are split into blocks of {@link #BLOCK} keys.
+ * The first key of each block goes to a skip index, the rest of the block is stored as deltas to the previous key,
+ * encoded as variable-byte integers. Consecutive keys mostly differ in the target offset only, so most deltas
+ * take one to three bytes instead of eight. A lookup binary-searches the skip index and then decodes a single block.
+ * <p/>
+ * Layout of the buffer:
+ * <pre>
+ * long heads[blocks]       (first key of each block)
+ * int  starts[blocks + 1]  (position of each block in data, the last one is the data length)
+ * byte data[]
+ * </pre>
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+class CompressedKeySet implements IKeySet {
+
+    /**
+     * Amount of keys in a block.
+     */
+    public static final int BLOCK = 32;
+
+    private final LongBuffer heads;
+    private final IntBuffer starts;
+    private final ByteBuffer data;
+    private final int blocks;
+    private final int size;
+
+    /**
+     * Constructs an instance over the compressed buffer.
+     *
+     * @param buffer compressed keys, little-endian
+     * @param size   amount of keys
+     * @throws IllegalArgumentException if the buffer is too short
+     */
+    public CompressedKeySet(ByteBuffer buffer, int size) {
+        this.blocks = blocks(size);
+        this.size = size;
+        int dataStart = dataStart(blocks);
+        if (buffer.limit() < dataStart) {
+            throw new IllegalArgumentException("Truncated compressed keys: expected at least " + dataStart + " bytes, found " + buffer.limit());
+        }
+        ByteBuffer b = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        b.limit(8 * blocks);
+        this.heads = b.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        b.limit(dataStart).position(8 * blocks);
+        this.starts = b.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        int dataEnd = dataStart + starts.get(blocks);
+        if (buffer.limit() < dataEnd) {
+            throw new IllegalArgumentException("Truncated compressed keys: expected " + dataEnd + " bytes, found " + buffer.limit());
+        }
+        b.limit(dataEnd).position(dataStart);
+        this.data = b.slice();
+    }
+
+    public boolean contains(long key) {
+        // the last block with the head not greater than the key
+        int low = 0;
+        int high = blocks - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (heads.get(mid) <= key) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (0 > high) {
+            return false;
+        }
+        long value = heads.get(high);
+        int position = starts.get(high);
+        int end = starts.get(high + 1);
+        while (value < key && position < end) {
+            // variable-byte delta, 7 bits per byte, least significant group first
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data.get(position++);
+                delta |= (long) (b & 0x7f) << shift;
+                shift += 7;
+            } while (0 > b);
+            value += delta;
+        }
+        return value == key;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the amount of bytes needed for the skip index and the data.
+     *
+     * @return the amount of bytes
+     */
+    public int getByteSize() {
+        return dataStart(blocks) + data.limit();
+    }
+
+    /**
+     * Compresses sorted keys.
+     *
+     * @param sorted sorted distinct keys
+     * @return compressed keys, little-endian, positioned at zero
+     */
+    public static ByteBuffer compress(long[] sorted) {
+        int blocks = blocks(sorted.length);
+        long[] heads = new long[blocks];
+        int[] starts = new int[blocks + 1];
+        // 10 bytes is the longest encoding of a delta
+        ByteBuffer data = ByteBuffer.allocate(Math.max(0, sorted.length - blocks) * 10);
+        for (int i = 0; i < sorted.length; i++) {
+            if (0 == i % BLOCK) {
+                heads[i / BLOCK] = sorted[i];
+                starts[i / BLOCK] = data.position();
+            } else {
+                long delta = sorted[i] - sorted[i - 1];
+                while (0 != (delta & ~0x7fL)) {
+                    data.put((byte) ((delta & 0x7f) | 0x80));
+                    delta >>>= 7;
+                }
+                data.put((byte) delta);
+            }
+        }
+        starts[blocks] = data.position();
+        data.flip();
+
+        ByteBuffer result = ByteBuffer.allocate(dataStart(blocks) + data.limit()).order(ByteOrder.LITTLE_ENDIAN);
+        for (long head : heads) {
+            result.putLong(head);
+        }
+        for (int start : starts) {
+            result.putInt(start);
+        }
+        result.put(data);
+        result.flip();
+        return result;
+    }
+
+    /**
+     * Decompresses all keys.
+     *
+     * @return sorted keys
+     */
+    public long[] toSorted() {
+        long[] result = new long[size];
+        for (int block = 0; block < blocks; block++) {
+            int i = block * BLOCK;
+            long value = heads.get(block);
+            result[i++] = value;
+            int position = starts.get(block);
+            int end = starts.get(block + 1);
+            while (position < end) {
+                long delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data.get(position++);
+                    delta |= (long) (b & 0x7f) << shift;
+                    shift += 7;
+                } while (0 > b);
+                value += delta;
+                result[i++] = value;
+            }
+        }
+        return result;
+    }
+
+    private static int blocks(int size) {
+        return (size + BLOCK - 1) / BLOCK;
+    }
+
+    private static int dataStart(int blocks) {
+        return 8 * blocks + 4 * (blocks + 1);
+    }
+}
@@ -0,0 +1,62 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+/**
+ * Snapshot of the Bloom filter counters of a relation.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class FilterStatistics {
+
+    private final String relation;
+    private final long rejected;
+    private final long passed;
+    private final long falsePositives;
+
+    public FilterStatistics(String relation, long rejected, long passed, long falsePositives) {
+        this.relation = relation;
+        this.rejected = rejected;
+        this.passed = passed;
+        this.falsePositives = falsePositives;
+    }
+
+    /**
+     * Returns the relation name.
+     *
+     * @return the relation name
+     */
+    public String getRelation() {
+        return relation;
+    }
+
+    /**
+     * Returns how many lookups the filter answered alone, skipping the search.
+     *
+     * @return how many lookups the filter answered alone
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Returns how many lookups passed the filter and were searched.
+     *
+     * @return how many lookups passed the filter
+     */
+    public long getPassed() {
+        return passed;
+    }
+
+    /**
+     * Returns how many lookups passed the filter, but were not found by the search.
+     *
+     * @return how many lookups passed the filter, but were not found
+     */
+    public long getFalsePositives() {
+        return falsePositives;
+    }
+
+    @Override
+    public String toString() {
+        return relation + ": rejected=" + rejected + ", passed=" + passed + ", false positives=" + falsePositives;
+    }
+}
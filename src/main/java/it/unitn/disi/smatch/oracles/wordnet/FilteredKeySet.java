@@ -0,0 +1,58 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+/**
+ * Key set which consults a Bloom filter before searching the underlying key set
+ * and counts how often the search was skipped.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+class FilteredKeySet implements IKeySet {
+
+    private final String name;
+    private final BloomFilter filter;
+    private final IKeySet keys;
+
+    // striped, every lookup counts and lookups run on many threads at once
+    private final StripedCounter rejected = new StripedCounter();
+    private final StripedCounter passed = new StripedCounter();
+    private final StripedCounter falsePositives = new StripedCounter();
+
+    /**
+     * Constructs an instance.
+     *
+     * @param name   relation name, used in statistics
+     * @param filter filter built over the keys
+     * @param keys   keys
+     */
+    public FilteredKeySet(String name, BloomFilter filter, IKeySet keys) {
+        this.name = name;
+        this.filter = filter;
+        this.keys = keys;
+    }
+
+    public boolean contains(long key) {
+        if (!filter.mightContain(key)) {
+            rejected.increment();
+            return false;
+        }
+        passed.increment();
+        if (keys.contains(key)) {
+            return true;
+        }
+        falsePositives.increment();
+        return false;
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    /**
+     * Returns a snapshot of the filter counters.
+     *
+     * @return a snapshot of the filter counters
+     */
+    public FilterStatistics getStatistics() {
+        return new FilterStatistics(name, rejected.get(), passed.get(), falsePositives.get());
+    }
+}
@@ -0,0 +1,90 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+/**
+ * Key set backed by an on-heap open-addressing hash table with linear probing.
+ * Answers membership with one or two probes on average instead of a binary search.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+class HashKeySet implements IKeySet {
+
+    // marks empty slots, the key itself is tracked separately
+    private static final long EMPTY = 0L;
+
+    private final long[] table;
+    private final int mask;
+    private final int size;
+    private final boolean containsEmpty;
+
+    /**
+     * Constructs an instance containing the keys. Keys should be distinct.
+     *
+     * @param keys keys
+     */
+    public HashKeySet(long[] keys) {
+        // keep load factor at or below 0.5
+        int capacity = Integer.highestOneBit(Math.max(2, keys.length) * 2 - 1) << 1;
+        table = new long[capacity];
+        mask = capacity - 1;
+        boolean hasEmpty = false;
+        int count = 0;
+        for (long key : keys) {
+            if (EMPTY == key) {
+                if (!hasEmpty) {
+                    hasEmpty = true;
+                    count++;
+                }
+            } else {
+                int i = hash(key) & mask;
+                while (EMPTY != table[i] && key != table[i]) {
+                    i = (i + 1) & mask;
+                }
+                if (EMPTY == table[i]) {
+                    table[i] = key;
+                    count++;
+                }
+            }
+        }
+        containsEmpty = hasEmpty;
+        size = count;
+    }
+
+    public boolean contains(long key) {
+        if (EMPTY == key) {
+            return containsEmpty;
+        }
+        int i = hash(key) & mask;
+        long slot;
+        while (EMPTY != (slot = table[i])) {
+            if (key == slot) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static int hash(long key) {
+        return (int) mix(key);
+    }
+
+    /**
+     * Mixes the bits of the key with the finalization step of MurmurHash3,
+     * spreading both source and target offsets over all bits.
+     *
+     * @param key packed sense pair key
+     * @return mixed key
+     */
+    static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
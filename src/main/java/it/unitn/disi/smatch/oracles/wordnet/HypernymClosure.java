@@ -0,0 +1,166 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+import it.unitn.disi.smatch.SMatchException;
+import net.sf.extjwnl.JWNLException;
+import net.sf.extjwnl.data.Pointer;
+import net.sf.extjwnl.data.PointerType;
+import net.sf.extjwnl.data.Synset;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Transitive hypernyms of all synsets of a part of speech, computed once with a memoized depth-first search
+ * over the hypernym graph. The ancestors of a synset are the union of its hypernyms and their ancestors,
+ * so each part of the hierarchy is walked once instead of once per descendant.
+ * Immutable after construction and safe to share between threads.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+class HypernymClosure {
+
+    private static final int[] EMPTY = new int[0];
+
+    private static final byte NEW = 0;
+    private static final byte ACTIVE = 1;
+    private static final byte DONE = 2;
+
+    // sorted synset offsets
+    private final int[] offsets;
+    // direct hypernyms of offsets[i], as indexes
+    private final int[][] parents;
+    // sorted offsets of all hypernyms of offsets[i], transitively
+    private final int[][] ancestors;
+
+    /**
+     * Computes the closure of the synsets.
+     *
+     * @param synsets all synsets of a part of speech
+     * @throws SMatchException if a hypernym is missing from the synsets or the hypernyms contain a cycle
+     */
+    public HypernymClosure(List<Synset> synsets) throws SMatchException {
+        int n = synsets.size();
+        offsets = new int[n];
+        for (int i = 0; i < n; i++) {
+            offsets[i] = toInt(synsets.get(i).getOffset());
+        }
+        Arrays.sort(offsets);
+
+        parents = new int[n][];
+        try {
+            for (Synset synset : synsets) {
+                List<Pointer> pointers = synset.getPointers(PointerType.HYPERNYM);
+                int[] p = new int[pointers.size()];
+                for (int i = 0; i < p.length; i++) {
+                    long target = pointers.get(i).getTargetOffset();
+                    p[i] = Arrays.binarySearch(offsets, toInt(target));
+                    if (0 > p[i]) {
+                        throw new SMatchException("Hypernym " + target + " of " + synset.getOffset() + " not found");
+                    }
+                }
+                parents[Arrays.binarySearch(offsets, toInt(synset.getOffset()))] = p;
+            }
+        } catch (JWNLException e) {
+            throw new SMatchException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+        }
+
+        ancestors = new int[n][];
+        byte[] states = new byte[n];
+        for (int i = 0; i < n; i++) {
+            compute(i, states);
+        }
+    }
+
+    private int[] compute(int node, byte[] states) throws SMatchException {
+        if (DONE == states[node]) {
+            return ancestors[node];
+        }
+        if (ACTIVE == states[node]) {
+            throw new SMatchException("Hypernym cycle at " + offsets[node]);
+        }
+        states[node] = ACTIVE;
+        int[] result;
+        int[] p = parents[node];
+        if (0 == p.length) {
+            result = EMPTY;
+        } else if (1 == p.length) {
+            // the common case: the parent and its ancestors, which are already sorted and distinct
+            int[] a = compute(p[0], states);
+            int position = -Arrays.binarySearch(a, offsets[p[0]]) - 1;
+            result = new int[a.length + 1];
+            System.arraycopy(a, 0, result, 0, position);
+            result[position] = offsets[p[0]];
+            System.arraycopy(a, position, result, position + 1, a.length - position);
+        } else {
+            int length = p.length;
+            for (int parent : p) {
+                length += compute(parent, states).length;
+            }
+            result = new int[length];
+            int count = 0;
+            for (int parent : p) {
+                result[count++] = offsets[parent];
+                int[] a = ancestors[parent];
+                System.arraycopy(a, 0, result, count, a.length);
+                count += a.length;
+            }
+            Arrays.sort(result);
+            int distinct = 0;
+            for (int i = 0; i < result.length; i++) {
+                if (0 == distinct || result[distinct - 1] != result[i]) {
+                    result[distinct++] = result[i];
+                }
+            }
+            result = Arrays.copyOf(result, distinct);
+        }
+        ancestors[node] = result;
+        states[node] = DONE;
+        return result;
+    }
+
+    /**
+     * Returns the synset offsets.
+     *
+     * @return sorted synset offsets, shared
+     */
+    int[] getOffsets() {
+        return offsets;
+    }
+
+    /**
+     * Returns the first hypernym of each synset, which spans a forest over the hierarchy.
+     *
+     * @return index of the first hypernym of each synset in {@link #getOffsets()}, -1 for roots
+     */
+    int[] getFirstParents() {
+        int[] result = new int[parents.length];
+        for (int i = 0; i < parents.length; i++) {
+            result[i] = 0 == parents[i].length ? -1 : parents[i][0];
+        }
+        return result;
+    }
+
+    /**
+     * Adds the keys (offset &lt;&lt; 32) + ancestor of all ancestors of the synset.
+     *
+     * @param offset synset offset
+     * @param keys   keys
+     */
+    public void addAncestors(long offset, LongList keys) {
+        int i = Arrays.binarySearch(offsets, (int) offset);
+        if (0 <= i) {
+            for (int ancestor : ancestors[i]) {
+                if (offset != ancestor) {
+                    keys.add((offset << 32) + ancestor);
+                }
+            }
+        }
+    }
+
+    private static int toInt(long offset) throws SMatchException {
+        if (0 > offset || Integer.MAX_VALUE < offset) {
+            throw new SMatchException("Synset offset out of range: " + offset);
+        }
+        return (int) offset;
+    }
+}
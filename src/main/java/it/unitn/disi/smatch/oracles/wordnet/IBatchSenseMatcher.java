@@ -0,0 +1,43 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+import it.unitn.disi.smatch.data.ling.ISense;
+import it.unitn.disi.smatch.oracles.ISenseMatcher;
+import it.unitn.disi.smatch.oracles.SenseMatcherException;
+
+import java.util.List;
+
+/**
+ * Sense matcher which computes the relations between all source and target concepts of a matching task at once.
+ * Each sense pair is checked once for all relations, instead of once per relation as in
+ * {@link #getRelation(List, List)}, and the result is the same: the first of
+ * =, &lt;, &gt;, ! which holds between any pair of senses, or ? if none does.
+ * <p/>
+ * Rows are independent, so different rows of a matrix can be filled from different threads.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public interface IBatchSenseMatcher extends ISenseMatcher {
+
+    /**
+     * Returns the relations between all source and target concepts.
+     *
+     * @param sourceSenses senses of each source concept
+     * @param targetSenses senses of each target concept
+     * @return relation matrix, relations[i][j] is the relation between source i and target j
+     * @throws SenseMatcherException SenseMatcherException
+     */
+    char[][] getRelations(List<List<ISense>> sourceSenses, List<List<ISense>> targetSenses) throws SenseMatcherException;
+
+    /**
+     * Fills a range of rows of a relation matrix.
+     *
+     * @param sourceSenses senses of each source concept
+     * @param targetSenses senses of each target concept
+     * @param relations    relation matrix, with a row per source and a column per target
+     * @param fromRow      first row, inclusive
+     * @param toRow        last row, exclusive
+     * @throws SenseMatcherException SenseMatcherException
+     */
+    void getRelations(List<List<ISense>> sourceSenses, List<List<ISense>> targetSenses,
+                      char[][] relations, int fromRow, int toRow) throws SenseMatcherException;
+}
@@ -0,0 +1,25 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+/**
+ * A read-only set of packed sense pair keys, as stored in the WordNet relation caches.
+ * Implementations must be safe for concurrent lookups.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+interface IKeySet {
+
+    /**
+     * Checks whether the key is present in the set.
+     *
+     * @param key packed sense pair key
+     * @return true if the key is present
+     */
+    boolean contains(long key);
+
+    /**
+     * Returns the amount of keys in the set.
+     *
+     * @return the amount of keys in the set
+     */
+    int size();
+}
@@ -0,0 +1,88 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+import it.unitn.disi.smatch.SMatchException;
+import net.sf.extjwnl.data.POS;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Implements version of WN matcher which keeps the WordNet relations as per-synset adjacency lists
+ * (compressed sparse rows) instead of global arrays of sense pair keys. A check searches a small slice
+ * of the related synsets of the source, and all synsets more general than a synset are read with a single scan.
+ * <p/>
+ * Reads the same cache files as {@link InMemoryWordNetBinaryArray}, in any layout,
+ * see {@link InMemoryWordNetBinaryArray#createWordNetCaches}.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class InMemoryWordNetAdjacency extends KeySetSenseMatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryWordNetAdjacency.class);
+
+    private static final long[] EMPTY = new long[0];
+
+    private final AdjacencyKeySet nounMoreGeneral;
+    private final AdjacencyKeySet verbMoreGeneral;
+
+    public InMemoryWordNetAdjacency(
+            String adjectiveSynonyms,
+            String adjectiveAntonyms,
+            String nounHypernyms,
+            String nounAntonyms,
+            String adverbAntonyms,
+            String verbHypernyms,
+            String nominalizations
+    ) throws SMatchException {
+        this(
+                readAdjacency(adjectiveSynonyms, "adjective synonyms"),
+                readAdjacency(adjectiveAntonyms, "adjective antonyms"),
+                readAdjacency(nounHypernyms, "noun hypernyms"),
+                readAdjacency(nounAntonyms, "noun antonyms"),
+                readAdjacency(adverbAntonyms, "adverb antonyms"),
+                readAdjacency(verbHypernyms, "verb hypernyms"),
+                readAdjacency(nominalizations, "nominalizations")
+        );
+        log.info("Loaded WordNet cache to memory");
+    }
+
+    private InMemoryWordNetAdjacency(
+            AdjacencyKeySet adjectiveSynonyms,
+            AdjacencyKeySet adjectiveAntonyms,
+            AdjacencyKeySet nounHypernyms,
+            AdjacencyKeySet nounAntonyms,
+            AdjacencyKeySet adverbAntonyms,
+            AdjacencyKeySet verbHypernyms,
+            AdjacencyKeySet nominalizations
+    ) {
+        super(adjectiveSynonyms, adjectiveAntonyms, nounHypernyms, nounAntonyms, adverbAntonyms, verbHypernyms, nominalizations);
+        this.nounMoreGeneral = nounHypernyms;
+        this.verbMoreGeneral = verbHypernyms;
+    }
+
+    /**
+     * Returns offsets of all synsets more general than the synset: its hypernyms and holonyms for nouns,
+     * its hypernyms for verbs, transitively.
+     *
+     * @param pos    part of speech of the synset
+     * @param offset offset of the synset
+     * @return sorted offsets of more general synsets
+     */
+    public long[] getMoreGeneralOffsets(POS pos, long offset) {
+        if (POS.NOUN == pos) {
+            return nounMoreGeneral.getTargets(offset);
+        } else if (POS.VERB == pos) {
+            return verbMoreGeneral.getTargets(offset);
+        }
+        return EMPTY;
+    }
+
+    private static AdjacencyKeySet readAdjacency(String fileName, String name) throws SMatchException {
+        long[] keys = RelationFiles.readKeys(fileName);
+        if (0 < keys.length && (0 > keys[0] || ((long) Integer.MAX_VALUE << 32 | Integer.MAX_VALUE) < keys[keys.length - 1])) {
+            throw new SMatchException("Offsets out of range in " + name + ": " + fileName);
+        }
+        AdjacencyKeySet result = new AdjacencyKeySet(keys);
+        log.debug("Read " + name + ": " + result.size());
+        return result;
+    }
+}
@@ -1,11 +1,6 @@
 package it.unitn.disi.smatch.oracles.wordnet;
 
-import it.unitn.disi.common.DISIException;
-import it.unitn.disi.common.utils.MiscUtils;
 import it.unitn.disi.smatch.SMatchException;
-import it.unitn.disi.smatch.data.ling.ISense;
-import it.unitn.disi.smatch.data.mappings.IMappingElement;
-import it.unitn.disi.smatch.oracles.ISenseMatcher;
 import net.sf.extjwnl.JWNLException;
 import net.sf.extjwnl.data.*;
 import net.sf.extjwnl.data.list.PointerTargetNode;
@@ -15,7 +10,9 @@ import net.sf.extjwnl.dictionary.Dictionary;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * Implements version of WN matcher which use a fast internal data structure.
@@ -24,18 +21,53 @@ import java.util.*;
  * @author Mikalai Yatskevich mikalai.yatskevich@comlab.ox.ac.uk
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
-public class InMemoryWordNetBinaryArray implements ISenseMatcher {
+public class InMemoryWordNetBinaryArray extends KeySetSenseMatcher {
 
     private static final Logger log = LoggerFactory.getLogger(InMemoryWordNetBinaryArray.class);
 
-    // arrays with WordNet keys
-    private final long[] adj_syn;
-    private final long[] adj_opp;
-    private final long[] noun_mg;
-    private final long[] noun_opp;
-    private final long[] adv_opp;
-    private final long[] verb_mg;
-    private final long[] nominalizations;
+    // partitions of synsets per thread in cache generation, to balance uneven partitions
+    private static final int PARTITIONS_PER_THREAD = 4;
+
+    /**
+     * Lookup structures available for the relation keys.
+     */
+    public enum Index {
+        /**
+         * Binary search directly over the memory-mapped relation files. Fast to load, shared between processes.
+         */
+        BINARY_SEARCH,
+        /**
+         * Open-addressing hash table built on the heap at load time. Slower to load and uses more memory,
+         * but answers each check with one or two probes.
+         */
+        HASH
+    }
+
+    /**
+     * Orders of the keys in the relation files.
+     */
+    public enum Layout {
+        /**
+         * Sorted keys, searched with a binary search.
+         */
+        SORTED(RelationFiles.LAYOUT_SORTED),
+        /**
+         * Keys in cache line sized nodes of an implicit static B-tree, searched with a cache-friendly,
+         * branch-free descent. Pays off on the large noun_mg and verb_mg arrays, where most lookups miss.
+         */
+        BLOCKED(RelationFiles.LAYOUT_BLOCKED),
+        /**
+         * Sorted keys compressed in blocks of delta-encoded variable-byte integers, with a skip index of block
+         * heads. A lookup searches the skip index and decodes one block. Takes several times less memory and disk.
+         */
+        COMPRESSED(RelationFiles.LAYOUT_COMPRESSED);
+
+        private final short code;
+
+        Layout(short code) {
+            this.code = code;
+        }
+    }
 
     public InMemoryWordNetBinaryArray(
             String adjectiveSynonyms,
@@ -46,186 +78,144 @@ public class InMemoryWordNetBinaryArray implements ISenseMatcher {
             String verbHypernyms,
             String nominalizations
     ) throws SMatchException {
-        log.info("Loading WordNet cache to memory...");
-        this.adj_syn = readArray(adjectiveSynonyms, "adjective synonyms");
-        this.adj_opp = readArray(adjectiveAntonyms, "adjective antonyms");
-        this.noun_mg = readArray(nounHypernyms, "noun hypernyms");
-        this.noun_opp = readArray(nounAntonyms, "noun antonyms");
-        this.verb_mg = readArray(verbHypernyms, "verb hypernyms");
-        this.adv_opp = readArray(adverbAntonyms, "adverb antonyms");
-        this.nominalizations = readArray(nominalizations, "nominalizations");
-        log.info("Loaded WordNet cache to memory");
-    }
-
-    public char getRelation(List<ISense> sourceSenses, List<ISense> targetSenses) {
-        // Check for synonymy
-        for (ISense sourceSense : sourceSenses) {
-            for (ISense targetSense : targetSenses) {
-                if (isSourceSynonymTarget(sourceSense, targetSense)) {
-                    return IMappingElement.EQUIVALENCE;
-                }
-            }
-        }
-        // Check for less general than
-        for (ISense sourceSense : sourceSenses) {
-            for (ISense targetSense : targetSenses) {
-                if (isSourceLessGeneralThanTarget(sourceSense, targetSense)) {
-                    return IMappingElement.LESS_GENERAL;
-                }
-            }
-        }
-        // Check for more general than
-        for (ISense sourceSense : sourceSenses) {
-            for (ISense targetSense : targetSenses) {
-                if (isSourceMoreGeneralThanTarget(sourceSense, targetSense)) {
-                    return IMappingElement.MORE_GENERAL;
-                }
-            }
-        }
-        // Check for opposite meaning
-        for (ISense sourceSense : sourceSenses) {
-            for (ISense targetSense : targetSenses) {
-                if (isSourceOppositeToTarget(sourceSense, targetSense)) {
-                    return IMappingElement.DISJOINT;
-                }
-            }
-        }
-        return IMappingElement.IDK;
+        this(adjectiveSynonyms, adjectiveAntonyms, nounHypernyms, nounAntonyms, adverbAntonyms, verbHypernyms,
+                nominalizations, Index.BINARY_SEARCH);
     }
 
-    private boolean isSourceOppositeToTargetInt(long sourceSense, long targetSense, POS sourcePOS, POS targetPOS) {
-        long key;
-        if (targetSense > sourceSense) {
-            key = (targetSense << 32) + sourceSense;
-        } else {
-            key = (sourceSense << 32) + targetSense;
-        }
-
-        if ((POS.NOUN == sourcePOS) && (POS.NOUN == targetPOS)) {
-            if (Arrays.binarySearch(noun_opp, key) >= 0) {
-                log.trace("Found ! using ! (ANTONYM) between nouns");
-                return true;
-            }
-        } else {
-            if ((POS.ADJECTIVE == sourcePOS) && (POS.ADJECTIVE == targetPOS)) {
-                if (Arrays.binarySearch(adj_opp, key) >= 0) {
-                    log.trace("Found ! using ! (ANTONYM) between adjectives");
-                    return true;
-                }
-            } else {
-                if ((POS.ADVERB == sourcePOS) && (POS.ADVERB == targetPOS)) {
-                    if (Arrays.binarySearch(adv_opp, key) >= 0) {
-                        log.trace("Found ! using ! (ANTONYM) between adverbs");
-                        return true;
-                    }
-                }
-            }
-        }
-
-        return false;
-    }
-
-    private boolean isSourceLessGeneralThanTargetInt(long sourceSense, long targetSense, POS sourcePOS, POS targetPOS) {
-        long key = (sourceSense << 32) + targetSense;
-        if ((POS.NOUN == sourcePOS) && (POS.NOUN == targetPOS)) {
-            if (Arrays.binarySearch(noun_mg, key) >= 0) {
-                log.trace("Found < using @,#m,#s,#p (HYPERNYM, MEMBER_, SUBSTANCE_, PART_HOLONYM) between nouns");
-                return true;
-            }
-        } else {
-            if ((POS.VERB == sourcePOS) && (POS.VERB == targetPOS)) {
-                if (Arrays.binarySearch(verb_mg, key) >= 0) {
-                    log.trace("Found < using @ (HYPERNYM) between verbs");
-                    return true;
-                }
-            }
-        }
-
-        return false;
+    public InMemoryWordNetBinaryArray(
+            String adjectiveSynonyms,
+            String adjectiveAntonyms,
+            String nounHypernyms,
+            String nounAntonyms,
+            String adverbAntonyms,
+            String verbHypernyms,
+            String nominalizations,
+            Index index
+    ) throws SMatchException {
+        super(
+                readArray(adjectiveSynonyms, "adjective synonyms", index),
+                readArray(adjectiveAntonyms, "adjective antonyms", index),
+                readArray(nounHypernyms, "noun hypernyms", index),
+                readArray(nounAntonyms, "noun antonyms", index),
+                readArray(adverbAntonyms, "adverb antonyms", index),
+                readArray(verbHypernyms, "verb hypernyms", index),
+                readArray(nominalizations, "nominalizations", index)
+        );
+        log.info("Loaded WordNet cache to memory (" + index + ")");
     }
 
-    private boolean isSourceSynonymTargetInt(long sourceSense, long targetSense, POS sourcePOS, POS targetPOS) {
-        if (sourceSense == targetSense) {
-            return true;
-        }
-
-        long key;
-        if (targetSense > sourceSense) {
-            key = (targetSense << 32) + sourceSense;
+    private static IKeySet readArray(String fileName, String name, Index index) throws SMatchException {
+        IKeySet result;
+        if (Index.HASH == index) {
+            result = new HashKeySet(RelationFiles.readKeys(fileName));
         } else {
-            key = (sourceSense << 32) + targetSense;
+            result = RelationFiles.read(fileName);
         }
-
-        if ((POS.ADJECTIVE == sourcePOS) && (POS.ADJECTIVE == targetPOS)) {
-            if (Arrays.binarySearch(adj_syn, key) >= 0) {
-                log.trace("Found = using & (SIMILAR_TO) between adjectives");
-                return true;
-            }
-        }
-        if ((POS.NOUN == sourcePOS) && (POS.VERB == targetPOS)) {
-            key = (targetSense << 32) + sourceSense;
-            if (Arrays.binarySearch(nominalizations, key) >= 0) {
-                log.trace("Found = using + (DERIVATION) between a noun and a verb");
-                return true;
-            }
+        log.debug("Read " + name + ": " + result.size());
+        String filterFileName = fileName + BloomFilter.SUFFIX;
+        if (new File(filterFileName).exists()) {
+            result = new FilteredKeySet(name, BloomFilter.read(filterFileName), result);
+            log.debug("Read " + name + " filter");
         }
-        if ((POS.VERB == sourcePOS) && (POS.NOUN == targetPOS)) {
-            key = (sourceSense << 32) + targetSense;
-            if (Arrays.binarySearch(nominalizations, key) >= 0) {
-                log.trace("Found = using + (DERIVATION) between a verb and a noun");
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private static long[] readArray(String fileName, String name) throws SMatchException {
-        long[] result = readHash(fileName);
-        log.debug("Read " + name + ": " + result.length);
         return result;
     }
 
-    private static long[] readHash(String fileName) throws SMatchException {
-        try {
-            return (long[]) MiscUtils.readObject(fileName);
-        } catch (DISIException e) {
-            throw new SMatchException(e.getMessage(), e);
-        }
-    }
-
-    public boolean isSourceMoreGeneralThanTarget(ISense source, ISense target) {
-        return isSourceLessGeneralThanTarget(target, source);
-    }
-
-    public boolean isSourceLessGeneralThanTarget(ISense source, ISense target) {
-        return (source instanceof WordNetSense) && (target instanceof WordNetSense)
-                && isSourceLessGeneralThanTargetInt(
-                ((WordNetSense) source).getOffset(),
-                ((WordNetSense) target).getOffset(),
-                ((WordNetSense) source).getPOS(),
-                ((WordNetSense) target).getPOS());
+    /**
+     * Create caches of WordNet to speed up matching.
+     * Caches are written as flat binary relation files with sorted keys, which are memory-mapped when loaded.
+     *
+     * @param jwnlPropertiesPath extJWNL properties file path
+     * @param adjectiveSynonyms  adjective synonyms file path
+     * @param adjectiveAntonyms  adjective antonyms file path
+     * @param nounHypernyms      noun hypernyms file path
+     * @param nounAntonyms       noun antonyms file path
+     * @param adverbAntonyms     adverb antonyms file path
+     * @param verbHypernyms      verb hypernyms file path
+     * @param nominalizations    nominalizations file path
+     * @throws SMatchException SMatchException
+     */
+    public static void createWordNetCaches(String jwnlPropertiesPath,
+                                           String adjectiveSynonyms,
+                                           String adjectiveAntonyms,
+                                           String nounHypernyms,
+                                           String nounAntonyms,
+                                           String adverbAntonyms,
+                                           String verbHypernyms,
+                                           String nominalizations
+    ) throws SMatchException {
+        createWordNetCaches(jwnlPropertiesPath, adjectiveSynonyms, adjectiveAntonyms, nounHypernyms, nounAntonyms,
+                adverbAntonyms, verbHypernyms, nominalizations, Layout.SORTED);
     }
 
-    public boolean isSourceSynonymTarget(ISense source, ISense target) {
-        return (source instanceof WordNetSense) && (target instanceof WordNetSense)
-                && isSourceSynonymTargetInt(
-                ((WordNetSense) source).getOffset(),
-                ((WordNetSense) target).getOffset(),
-                ((WordNetSense) source).getPOS(),
-                ((WordNetSense) target).getPOS());
+    /**
+     * Create caches of WordNet to speed up matching.
+     * Caches are written as flat binary relation files with the given layout, which are memory-mapped when loaded.
+     *
+     * @param jwnlPropertiesPath extJWNL properties file path
+     * @param adjectiveSynonyms  adjective synonyms file path
+     * @param adjectiveAntonyms  adjective antonyms file path
+     * @param nounHypernyms      noun hypernyms file path
+     * @param nounAntonyms       noun antonyms file path
+     * @param adverbAntonyms     adverb antonyms file path
+     * @param verbHypernyms      verb hypernyms file path
+     * @param nominalizations    nominalizations file path
+     * @param layout             order of the keys in the files
+     * @throws SMatchException SMatchException
+     */
+    public static void createWordNetCaches(String jwnlPropertiesPath,
+                                           String adjectiveSynonyms,
+                                           String adjectiveAntonyms,
+                                           String nounHypernyms,
+                                           String nounAntonyms,
+                                           String adverbAntonyms,
+                                           String verbHypernyms,
+                                           String nominalizations,
+                                           Layout layout
+    ) throws SMatchException {
+        createWordNetCaches(jwnlPropertiesPath, adjectiveSynonyms, adjectiveAntonyms, nounHypernyms, nounAntonyms,
+                adverbAntonyms, verbHypernyms, nominalizations, layout, false);
     }
 
-    public boolean isSourceOppositeToTarget(ISense source, ISense target) {
-        return (source instanceof WordNetSense) && (target instanceof WordNetSense)
-                && isSourceOppositeToTargetInt(
-                ((WordNetSense) source).getOffset(),
-                ((WordNetSense) target).getOffset(),
-                ((WordNetSense) source).getPOS(),
-                ((WordNetSense) target).getPOS());
+    /**
+     * Create caches of WordNet to speed up matching.
+     * Caches are written as flat binary relation files with the given layout, which are memory-mapped when loaded.
+     * Optionally, a Bloom filter is written next to each relation file. When present, the filter is checked
+     * before each search and rules out most of the unrelated sense pairs without searching.
+     *
+     * @param jwnlPropertiesPath extJWNL properties file path
+     * @param adjectiveSynonyms  adjective synonyms file path
+     * @param adjectiveAntonyms  adjective antonyms file path
+     * @param nounHypernyms      noun hypernyms file path
+     * @param nounAntonyms       noun antonyms file path
+     * @param adverbAntonyms     adverb antonyms file path
+     * @param verbHypernyms      verb hypernyms file path
+     * @param nominalizations    nominalizations file path
+     * @param layout             order of the keys in the files
+     * @param filters            whether to write Bloom filters
+     * @throws SMatchException SMatchException
+     */
+    public static void createWordNetCaches(String jwnlPropertiesPath,
+                                           String adjectiveSynonyms,
+                                           String adjectiveAntonyms,
+                                           String nounHypernyms,
+                                           String nounAntonyms,
+                                           String adverbAntonyms,
+                                           String verbHypernyms,
+                                           String nominalizations,
+                                           Layout layout,
+                                           boolean filters
+    ) throws SMatchException {
+        createWordNetCaches(jwnlPropertiesPath, adjectiveSynonyms, adjectiveAntonyms, nounHypernyms, nounAntonyms,
+                adverbAntonyms, verbHypernyms, nominalizations, layout, filters, 1);
     }
 
     /**
      * Create caches of WordNet to speed up matching.
+     * Caches are written as flat binary relation files with the given layout, which are memory-mapped when loaded.
+     * Optionally, a Bloom filter is written next to each relation file.
+     * <p/>
+     * The relations are created concurrently, each one split across partitions of synsets,
+     * on the given amount of threads. The files are the same regardless of the amount of threads.
      *
      * @param jwnlPropertiesPath extJWNL properties file path
      * @param adjectiveSynonyms  adjective synonyms file path
@@ -235,6 +225,9 @@ public class InMemoryWordNetBinaryArray implements ISenseMatcher {
      * @param adverbAntonyms     adverb antonyms file path
      * @param verbHypernyms      verb hypernyms file path
      * @param nominalizations    nominalizations file path
+     * @param layout             order of the keys in the files
+     * @param filters            whether to write Bloom filters
+     * @param parallelism        amount of threads
      * @throws SMatchException SMatchException
      */
     public static void createWordNetCaches(String jwnlPropertiesPath,
@@ -244,228 +237,264 @@ public class InMemoryWordNetBinaryArray implements ISenseMatcher {
                                            String nounAntonyms,
                                            String adverbAntonyms,
                                            String verbHypernyms,
-                                           String nominalizations
+                                           String nominalizations,
+                                           Layout layout,
+                                           boolean filters,
+                                           int parallelism
     ) throws SMatchException {
+        if (1 > parallelism) {
+            throw new SMatchException("Parallelism must be positive: " + parallelism);
+        }
         Dictionary dic = WordNet.getDictionary(jwnlPropertiesPath);
 
-        log.info("Creating WordNet caches...");
-        convertAndWrite(findNominalizations(dic), nominalizations);
-        convertAndWrite(findAdjectiveSynonyms(dic), adjectiveSynonyms);
-        convertAndWrite(findAdverbAntonyms(dic), adverbAntonyms);
-        convertAndWrite(findAdjectiveAntonyms(dic), adjectiveAntonyms);
-        convertAndWrite(findNounAntonyms(dic), nounAntonyms);
-        convertAndWrite(findNounHypernyms(dic), nounHypernyms);
-        convertAndWrite(findVerbHypernyms(dic), verbHypernyms);
+        log.info("Creating WordNet caches (" + layout + (filters ? ", with filters" : "") + ", " + parallelism + " threads)...");
+        List<Synset> nouns = getSynsets(dic, POS.NOUN);
+        List<Synset> verbs = getSynsets(dic, POS.VERB);
+        List<Synset> adjectives = getSynsets(dic, POS.ADJECTIVE);
+        List<Synset> adverbs = getSynsets(dic, POS.ADVERB);
+        RelationFinder nounHypernymsFinder = nounHypernyms(new HypernymClosure(nouns));
+        RelationFinder verbHypernymsFinder = verbHypernyms(new HypernymClosure(verbs));
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            // submit all passes at once, the small ones fill the gaps left by the large ones
+            List<Future<LongList>> nominalizationsKeys = submit(executor, verbs, NOMINALIZATIONS, parallelism);
+            List<Future<LongList>> adjectiveSynonymsKeys = submit(executor, adjectives, ADJECTIVE_SYNONYMS, parallelism);
+            List<Future<LongList>> adverbAntonymsKeys = submit(executor, adverbs, ADVERB_ANTONYMS, parallelism);
+            List<Future<LongList>> adjectiveAntonymsKeys = submit(executor, adjectives, ADJECTIVE_ANTONYMS, parallelism);
+            List<Future<LongList>> nounAntonymsKeys = submit(executor, nouns, NOUN_ANTONYMS, parallelism);
+            List<Future<LongList>> nounHypernymsKeys = submit(executor, nouns, nounHypernymsFinder, parallelism);
+            List<Future<LongList>> verbHypernymsKeys = submit(executor, verbs, verbHypernymsFinder, parallelism);
+
+            convertAndWrite(collect(NOMINALIZATIONS, nominalizationsKeys), nominalizations, layout, filters);
+            convertAndWrite(collect(ADJECTIVE_SYNONYMS, adjectiveSynonymsKeys), adjectiveSynonyms, layout, filters);
+            convertAndWrite(collect(ADVERB_ANTONYMS, adverbAntonymsKeys), adverbAntonyms, layout, filters);
+            convertAndWrite(collect(ADJECTIVE_ANTONYMS, adjectiveAntonymsKeys), adjectiveAntonyms, layout, filters);
+            convertAndWrite(collect(NOUN_ANTONYMS, nounAntonymsKeys), nounAntonyms, layout, filters);
+            convertAndWrite(collect(nounHypernymsFinder, nounHypernymsKeys), nounHypernyms, layout, filters);
+            convertAndWrite(collect(verbHypernymsFinder, verbHypernymsKeys), verbHypernyms, layout, filters);
+        } finally {
+            executor.shutdownNow();
+        }
         log.info("Created WordNet caches");
     }
 
-    private static void convertAndWrite(Set<Long> keys, String fileName) throws SMatchException {
-        try {
-            long[] keysArr = new long[keys.size()];
-            int i = 0;
-            for (Long key : keys) {
-                keysArr[i] = key;
-                i++;
-            }
-            Arrays.sort(keysArr);
-            MiscUtils.writeObject(keysArr, fileName);
-        } catch (DISIException e) {
-            throw new SMatchException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+    private static void convertAndWrite(long[] keysArr, String fileName, Layout layout, boolean filters) throws SMatchException {
+        RelationFiles.write(keysArr, fileName, layout.code);
+        File filterFile = new File(fileName + BloomFilter.SUFFIX);
+        if (filters) {
+            BloomFilter.create(keysArr).write(filterFile.getPath());
+        } else if (filterFile.exists() && !filterFile.delete()) {
+            // a stale filter would reject keys of the new relation file
+            throw new SMatchException("Cannot delete stale filter file: " + filterFile.getPath());
         }
     }
 
-    private static Set<Long> findNominalizations(Dictionary dic) throws SMatchException {
-        log.info("Creating nominalizations array...");
+    static long[] findNounHypernyms(List<Synset> nouns, HypernymClosure closure) throws SMatchException {
+        return find(nouns, nounHypernyms(closure));
+    }
+
+    static long[] findVerbHypernyms(List<Synset> verbs, HypernymClosure closure) throws SMatchException {
+        return find(verbs, verbHypernyms(closure));
+    }
+
+    private static long[] find(List<Synset> synsets, RelationFinder finder) throws SMatchException {
+        log.info("Creating " + finder.name + " array...");
         try {
-            Set<Long> keys = new HashSet<>();
-            int count = 0;
-            Iterator<Synset> it = dic.getSynsetIterator(POS.VERB);
-            while (it.hasNext()) {
-                count++;
-                if (0 == count % 1000) {
-                    log.debug("nominalizations: " + count);
-                }
-                Synset source = it.next();
-                List<Pointer> pointers = source.getPointers(PointerType.DERIVATION);
-                for (Pointer pointer : pointers) {
-                    if (POS.NOUN.equals(pointer.getTargetPOS())) {
-                        long targetOffset = pointer.getTargetOffset();
-                        long key = (source.getOffset() << 32) + targetOffset;
-                        keys.add(key);
-                    }
-                }
+            LongList keys = new LongList();
+            for (Synset synset : synsets) {
+                finder.find(synset, keys);
             }
-            log.info("Nominalizations: " + keys.size());
-            return keys;
+            long[] result = keys.toSortedArray();
+            log.info(finder.name + ": " + result.length);
+            return result;
         } catch (JWNLException e) {
             throw new SMatchException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
         }
     }
 
-    private static Set<Long> findAdjectiveSynonyms(Dictionary dic) throws SMatchException {
-        log.info("Creating adjective synonyms array...");
+    static List<Synset> getSynsets(Dictionary dic, POS pos) throws SMatchException {
         try {
-            Set<Long> keys = new HashSet<>();
-            int count = 0;
-            Iterator<Synset> it = dic.getSynsetIterator(POS.ADJECTIVE);
+            List<Synset> result = new ArrayList<>();
+            Iterator<Synset> it = dic.getSynsetIterator(pos);
             while (it.hasNext()) {
-                count++;
-                if (0 == count % 1000) {
-                    log.debug("adjective synonyms: " + count);
-                }
-                Synset source = it.next();
-                long sourceOffset = source.getOffset();
-                List<Pointer> pointers = source.getPointers(PointerType.SIMILAR_TO);
-                for (Pointer ptr : pointers) {
-                    long targetOffset = ptr.getTargetOffset();
-                    long key;
-                    if (targetOffset > sourceOffset) {
-                        key = (targetOffset << 32) + sourceOffset;
-                    } else {
-                        key = (sourceOffset << 32) + targetOffset;
-                    }
-                    keys.add(key);
-                }
+                result.add(it.next());
             }
-            log.info("Adjective synonyms: " + keys.size());
-            return keys;
+            log.debug(pos.getLabel() + " synsets: " + result.size());
+            return result;
         } catch (JWNLException e) {
             throw new SMatchException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
         }
     }
 
-    private static Set<Long> findAdverbAntonyms(Dictionary dic) throws SMatchException {
-        log.info("Creating adverb antonyms array...");
-        try {
-            Set<Long> keys = new HashSet<>();
-            int count = 0;
-            Iterator<Synset> it = dic.getSynsetIterator(POS.ADVERB);
-            while (it.hasNext()) {
-                count++;
-                if (0 == count % 1000) {
-                    log.debug("adverb antonyms: " + count);
-                }
-                Synset source = it.next();
-                long sourceOffset = source.getOffset();
-                List<Pointer> pointers = source.getPointers(PointerType.ANTONYM);
-                for (Pointer ptr : pointers) {
-                    long targetOffset = ptr.getTargetOffset();
-                    long key;
-                    if (targetOffset > sourceOffset) {
-                        key = (targetOffset << 32) + sourceOffset;
-                    } else {
-                        key = (sourceOffset << 32) + targetOffset;
+    /**
+     * Splits the synsets into partitions and submits a task collecting the keys of each partition.
+     */
+    private static List<Future<LongList>> submit(ExecutorService executor, List<Synset> synsets,
+                                                  final RelationFinder finder, int parallelism) {
+        log.info("Creating " + finder.name + " array...");
+        int partitions = Math.max(1, Math.min(parallelism * PARTITIONS_PER_THREAD, synsets.size()));
+        List<Future<LongList>> result = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            final List<Synset> partition = synsets.subList(
+                    (int) ((long) synsets.size() * i / partitions),
+                    (int) ((long) synsets.size() * (i + 1) / partitions));
+            result.add(executor.submit(new Callable<LongList>() {
+                public LongList call() throws JWNLException {
+                    LongList keys = new LongList();
+                    for (Synset source : partition) {
+                        finder.find(source, keys);
                     }
-                    keys.add(key);
+                    return keys;
                 }
-            }
-            log.info("Adverbs antonyms: " + keys.size());
-            return keys;
-        } catch (JWNLException e) {
-            throw new SMatchException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+            }));
         }
+        return result;
     }
 
-    private static Set<Long> findAdjectiveAntonyms(Dictionary dic) throws SMatchException {
-        log.info("Creating adjective antonyms array...");
+    /**
+     * Waits for the tasks of a relation and merges their keys.
+     */
+    private static long[] collect(RelationFinder finder, List<Future<LongList>> partitions) throws SMatchException {
         try {
-            Set<Long> keys = new HashSet<>();
-            int count = 0;
-            Iterator<Synset> it = dic.getSynsetIterator(POS.ADJECTIVE);
-            while (it.hasNext()) {
-                count++;
-                if (0 == count % 1000) {
-                    log.debug("adjective antonyms: " + count);
+            LongList keys = null;
+            for (Future<LongList> partition : partitions) {
+                if (null == keys) {
+                    keys = partition.get();
+                } else {
+                    keys.addAll(partition.get());
                 }
-                Synset current = it.next();
-                traverseTree(keys, PointerUtils.getExtendedAntonyms(current), current.getOffset());
-                traverseListSym(keys, PointerUtils.getAntonyms(current), current.getOffset());
             }
-            log.info("Adjective antonyms: " + keys.size());
-            return keys;
-        } catch (JWNLException e) {
-            throw new SMatchException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+            long[] result = keys.toSortedArray();
+            log.info(finder.name + ": " + result.length);
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SMatchException("Interrupted while creating " + finder.name + " array", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw new SMatchException(cause.getClass().getSimpleName() + ": " + cause.getMessage(), cause);
         }
     }
 
-    private static Set<Long> findNounAntonyms(Dictionary dic) throws SMatchException {
-        log.info("Creating noun antonyms array...");
-        try {
-            Set<Long> keys = new HashSet<>();
-            int count = 0;
-            Iterator<Synset> it = dic.getSynsetIterator(POS.NOUN);
-            while (it.hasNext()) {
-                count++;
-                if (0 == count % 10000) {
-                    log.debug("noun antonyms: " + count);
-                }
-                Synset source = it.next();
-
-                cartPr(keys, source.getPointers(PointerType.PART_MERONYM));
-                cartPr(keys, source.getPointers(PointerType.SUBSTANCE_MERONYM));
-                cartPr(keys, source.getPointers(PointerType.MEMBER_MERONYM));
-            }
+    /**
+     * Collects the keys of a relation from a synset.
+     */
+    private abstract static class RelationFinder {
+        private final String name;
+        private final POS pos;
 
-            log.info("Noun antonyms: " + keys.size());
-            return keys;
-        } catch (JWNLException e) {
-            throw new SMatchException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+        private RelationFinder(String name, POS pos) {
+            this.name = name;
+            this.pos = pos;
         }
+
+        /**
+         * Adds the keys of the relation between the source and other synsets.
+         *
+         * @param source source synset, of the part of speech of the finder
+         * @param keys   keys
+         * @throws JWNLException JWNLException
+         */
+        abstract void find(Synset source, LongList keys) throws JWNLException;
     }
 
-    private static Set<Long> findNounHypernyms(Dictionary dic) throws SMatchException {
-        log.info("Creating noun hypernyms array...");
-        try {
-            Set<Long> keys = new HashSet<>();
-            int count = 0;
-            Iterator<Synset> it = dic.getSynsetIterator(POS.NOUN);
-            while (it.hasNext()) {
-                count++;
-                if (0 == count % 10000) {
-                    log.debug("noun hypernyms: " + count);
+    private static final RelationFinder NOMINALIZATIONS = new RelationFinder("nominalizations", POS.VERB) {
+        void find(Synset source, LongList keys) throws JWNLException {
+            List<Pointer> pointers = source.getPointers(PointerType.DERIVATION);
+            for (Pointer pointer : pointers) {
+                if (POS.NOUN.equals(pointer.getTargetPOS())) {
+                    long targetOffset = pointer.getTargetOffset();
+                    long key = (source.getOffset() << 32) + targetOffset;
+                    keys.add(key);
                 }
-                Synset source = it.next();
-                long sourceOffset = source.getOffset();
-                traverseTreeMG(keys, PointerUtils.getHypernymTree(source), sourceOffset);
-                traverseTreeMG(keys, PointerUtils.getInheritedHolonyms(source), sourceOffset);
-                traverseTreeMG(keys, PointerUtils.getInheritedMemberHolonyms(source), sourceOffset);
-                traverseTreeMG(keys, PointerUtils.getInheritedPartHolonyms(source), sourceOffset);
-                traverseTreeMG(keys, PointerUtils.getInheritedSubstanceHolonyms(source), sourceOffset);
-                traverseListMG(keys, PointerUtils.getHolonyms(source), sourceOffset);
-                traverseListMG(keys, PointerUtils.getMemberHolonyms(source), sourceOffset);
-                traverseListMG(keys, PointerUtils.getPartHolonyms(source), sourceOffset);
-                traverseListMG(keys, PointerUtils.getSubstanceHolonyms(source), sourceOffset);
             }
-            log.info("Noun hypernyms: " + keys.size());
-            return keys;
-        } catch (JWNLException e) {
-            throw new SMatchException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
         }
-    }
-
-    private static Set<Long> findVerbHypernyms(Dictionary dic) throws SMatchException {
-        log.info("Creating verb hypernyms array...");
-        try {
-            Set<Long> keys = new HashSet<>();
-            int count = 0;
-            Iterator<Synset> it = dic.getSynsetIterator(POS.VERB);
-            while (it.hasNext()) {
-                count++;
-                if (0 == count % 1000) {
-                    log.debug("verb hypernyms: " + count);
+    };
+
+    private static final RelationFinder ADJECTIVE_SYNONYMS = new RelationFinder("adjective synonyms", POS.ADJECTIVE) {
+        void find(Synset source, LongList keys) throws JWNLException {
+            long sourceOffset = source.getOffset();
+            List<Pointer> pointers = source.getPointers(PointerType.SIMILAR_TO);
+            for (Pointer ptr : pointers) {
+                long targetOffset = ptr.getTargetOffset();
+                long key;
+                if (targetOffset > sourceOffset) {
+                    key = (targetOffset << 32) + sourceOffset;
+                } else {
+                    key = (sourceOffset << 32) + targetOffset;
                 }
-                Synset source = it.next();
-                long sourceOffset = source.getOffset();
-                traverseTreeMG(keys, PointerUtils.getHypernymTree(source), sourceOffset);
+                keys.add(key);
             }
-            log.info("Verb hypernyms: " + keys.size());
-            return keys;
-        } catch (JWNLException e) {
-            throw new SMatchException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
         }
+    };
+
+    private static final RelationFinder ADVERB_ANTONYMS = new RelationFinder("adverb antonyms", POS.ADVERB) {
+        void find(Synset source, LongList keys) throws JWNLException {
+            long sourceOffset = source.getOffset();
+            List<Pointer> pointers = source.getPointers(PointerType.ANTONYM);
+            for (Pointer ptr : pointers) {
+                long targetOffset = ptr.getTargetOffset();
+                long key;
+                if (targetOffset > sourceOffset) {
+                    key = (targetOffset << 32) + sourceOffset;
+                } else {
+                    key = (sourceOffset << 32) + targetOffset;
+                }
+                keys.add(key);
+            }
+        }
+    };
+
+    private static final RelationFinder ADJECTIVE_ANTONYMS = new RelationFinder("adjective antonyms", POS.ADJECTIVE) {
+        void find(Synset current, LongList keys) throws JWNLException {
+            traverseTree(keys, PointerUtils.getExtendedAntonyms(current), current.getOffset());
+            traverseListSym(keys, PointerUtils.getAntonyms(current), current.getOffset());
+        }
+    };
+
+    private static final RelationFinder NOUN_ANTONYMS = new RelationFinder("noun antonyms", POS.NOUN) {
+        void find(Synset source, LongList keys) throws JWNLException {
+            cartPr(keys, source.getPointers(PointerType.PART_MERONYM));
+            cartPr(keys, source.getPointers(PointerType.SUBSTANCE_MERONYM));
+            cartPr(keys, source.getPointers(PointerType.MEMBER_MERONYM));
+        }
+    };
+
+    private static final PointerType[] HOLONYMS = {PointerType.PART_HOLONYM, PointerType.MEMBER_HOLONYM, PointerType.SUBSTANCE_HOLONYM};
+
+    /**
+     * Noun "more general" relation: all hypernyms, transitively, and the direct holonyms.
+     */
+    private static RelationFinder nounHypernyms(final HypernymClosure closure) {
+        return new RelationFinder("noun hypernyms", POS.NOUN) {
+            void find(Synset source, LongList keys) throws JWNLException {
+                long sourceOffset = source.getOffset();
+                closure.addAncestors(sourceOffset, keys);
+                for (PointerType type : HOLONYMS) {
+                    for (Pointer pointer : source.getPointers(type)) {
+                        long targetOffset = pointer.getTargetOffset();
+                        if (sourceOffset != targetOffset) {
+                            keys.add((sourceOffset << 32) + targetOffset);
+                        }
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Verb "more general" relation: all hypernyms, transitively.
+     */
+    private static RelationFinder verbHypernyms(final HypernymClosure closure) {
+        return new RelationFinder("verb hypernyms", POS.VERB) {
+            void find(Synset source, LongList keys) {
+                closure.addAncestors(source.getOffset(), keys);
+            }
+        };
     }
 
-    private static void cartPr(Set<Long> keys, List<Pointer> t) throws JWNLException {
+    private static void cartPr(LongList keys, List<Pointer> t) throws JWNLException {
         for (int i = 0; i < t.size(); i++) {
             Pointer ps = t.get(i);
             long sourceOffset = ps.getTargetSynset().getOffset();
@@ -485,17 +514,7 @@ public class InMemoryWordNetBinaryArray implements ISenseMatcher {
         }
     }
 
-    private static void traverseListMG(Set<Long> keys, PointerTargetNodeList pointers, long sourceOffset) {
-        for (Object pointer : pointers) {
-            long targetOffset = ((PointerTargetNode) pointer).getSynset().getOffset();
-            if (sourceOffset != targetOffset) {
-                long key = (sourceOffset << 32) + targetOffset;
-                keys.add(key);
-            }
-        }
-    }
-
-    private static void traverseListSym(Set<Long> keys, PointerTargetNodeList pointers, long sourceOffset) {
+    private static void traverseListSym(LongList keys, PointerTargetNodeList pointers, long sourceOffset) {
         for (Object ptn : pointers) {
             long targetOffset = ((PointerTargetNode) ptn).getSynset().getOffset();
             if (sourceOffset != targetOffset) {
@@ -510,19 +529,7 @@ public class InMemoryWordNetBinaryArray implements ISenseMatcher {
         }
     }
 
-    private static void traverseTreeMG(Set<Long> keys, PointerTargetTree syn, long sourceOffset) {
-        for (Object aMGListsList : syn.toList()) {
-            for (Object ptn : (PointerTargetNodeList) aMGListsList) {
-                long targetOffset = ((PointerTargetNode) ptn).getSynset().getOffset();
-                if (sourceOffset != targetOffset) {
-                    long key = (sourceOffset << 32) + targetOffset;
-                    keys.add(key);
-                }
-            }
-        }
-    }
-
-    private static void traverseTree(Set<Long> keys, PointerTargetTree syn, long sourceOffset) {
+    private static void traverseTree(LongList keys, PointerTargetTree syn, long sourceOffset) {
         for (Object aMGListsList : syn.toList()) {
             for (Object ptn : (PointerTargetNodeList) aMGListsList) {
                 long targetOffset = ((PointerTargetNode) ptn).getSynset().getOffset();
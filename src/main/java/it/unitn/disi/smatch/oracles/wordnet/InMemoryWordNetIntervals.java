@@ -0,0 +1,102 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+import it.unitn.disi.smatch.SMatchException;
+import net.sf.extjwnl.data.POS;
+import net.sf.extjwnl.data.Synset;
+import net.sf.extjwnl.dictionary.Dictionary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Implements version of WN matcher which answers noun and verb subsumption with an interval (pre/post-order)
+ * labelling of the hypernym hierarchies: two integer comparisons instead of a search over the transitive closure.
+ * Pairs not covered by the labelling, such as holonyms and second hypernyms of multiple inheritance synsets,
+ * are kept in a small exception list. Other relations are read from the {@link InMemoryWordNetBinaryArray} caches.
+ * Contains routines for generating the labelling.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class InMemoryWordNetIntervals extends KeySetSenseMatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryWordNetIntervals.class);
+
+    public InMemoryWordNetIntervals(
+            String adjectiveSynonyms,
+            String adjectiveAntonyms,
+            String nounIntervals,
+            String nounAntonyms,
+            String adverbAntonyms,
+            String verbIntervals,
+            String nominalizations
+    ) throws SMatchException {
+        super(
+                RelationFiles.read(adjectiveSynonyms),
+                RelationFiles.read(adjectiveAntonyms),
+                readIntervals(nounIntervals, "noun hypernyms"),
+                RelationFiles.read(nounAntonyms),
+                RelationFiles.read(adverbAntonyms),
+                readIntervals(verbIntervals, "verb hypernyms"),
+                RelationFiles.read(nominalizations)
+        );
+        log.info("Loaded WordNet cache to memory");
+    }
+
+    private static IKeySet readIntervals(String fileName, String name) throws SMatchException {
+        IntervalKeySet result = IntervalKeySet.read(fileName);
+        log.debug("Read " + name + ": " + result.size() + " (exceptions: " + result.getExceptionCount() + ")");
+        return result;
+    }
+
+    /**
+     * Create interval labellings of WordNet noun and verb hierarchies. The other relations are created with
+     * {@link InMemoryWordNetBinaryArray#createWordNetCaches(String, String, String, String, String, String, String, String)}.
+     * <p/>
+     * Each labelling is created from the transitive closure computed the same way as the noun and verb hypernym
+     * arrays of {@link InMemoryWordNetBinaryArray} and the written file is checked against it in both directions:
+     * it answers true for every pair of the closure and the pairs it answers true for are exactly the closure.
+     *
+     * @param jwnlPropertiesPath extJWNL properties file path
+     * @param nounIntervals      noun intervals file path
+     * @param verbIntervals      verb intervals file path
+     * @throws SMatchException SMatchException
+     */
+    public static void createWordNetCaches(String jwnlPropertiesPath,
+                                           String nounIntervals,
+                                           String verbIntervals
+    ) throws SMatchException {
+        Dictionary dic = WordNet.getDictionary(jwnlPropertiesPath);
+
+        log.info("Creating WordNet interval labellings...");
+        List<Synset> nouns = InMemoryWordNetBinaryArray.getSynsets(dic, POS.NOUN);
+        HypernymClosure nounHierarchy = new HypernymClosure(nouns);
+        createAndWrite(POS.NOUN, nounHierarchy, InMemoryWordNetBinaryArray.findNounHypernyms(nouns, nounHierarchy), nounIntervals);
+        List<Synset> verbs = InMemoryWordNetBinaryArray.getSynsets(dic, POS.VERB);
+        HypernymClosure verbHierarchy = new HypernymClosure(verbs);
+        createAndWrite(POS.VERB, verbHierarchy, InMemoryWordNetBinaryArray.findVerbHypernyms(verbs, verbHierarchy), verbIntervals);
+        log.info("Created WordNet interval labellings");
+    }
+
+    private static void createAndWrite(POS pos, HypernymClosure hierarchy, long[] closure, String fileName) throws SMatchException {
+        log.info("Creating " + pos.getLabel() + " interval labelling...");
+        // the first hypernym of each synset is its parent in the spanning forest
+        int[] offsets = hierarchy.getOffsets();
+        IntervalKeySet intervals = IntervalKeySet.create(offsets, hierarchy.getFirstParents(), closure);
+        log.info(pos.getLabel() + " intervals: " + offsets.length + ", closure: " + closure.length
+                + ", exceptions: " + intervals.getExceptionCount());
+        intervals.write(fileName);
+
+        // check the written labelling against the closure, through the lookups and through the labels
+        IntervalKeySet written = IntervalKeySet.read(fileName);
+        for (long key : closure) {
+            if (!written.contains(key)) {
+                throw new SMatchException("Interval labelling misses " + (key >>> 32) + " < " + (key & 0xffffffffL));
+            }
+        }
+        if (!Arrays.equals(closure, written.toKeys())) {
+            throw new SMatchException("Interval labelling relates pairs missing from the closure");
+        }
+    }
+}
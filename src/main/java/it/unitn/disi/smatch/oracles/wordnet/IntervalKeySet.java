@@ -0,0 +1,375 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+import it.unitn.disi.smatch.SMatchException;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Key set of a transitive "more general" relation answered with an interval labelling of a spanning forest
+ * of the hierarchy. Each synset is labelled with its pre-order and post-order numbers in the forest,
+ * and a synset is an ancestor of another if its interval encloses the interval of the other, which takes
+ * two integer comparisons. Synsets are found by their offsets in an open-addressing hash table, in one or two
+ * probes. Pairs of the relation not covered by the forest, due to multiple inheritance or to other relations
+ * such as holonymy, are kept as exceptions grouped by their source synset, so a pair outside the forest is
+ * checked only against the few exceptions of its source.
+ * <p/>
+ * The labelling is stored in a flat little-endian binary file:
+ * <pre>
+ * int   magic      (SMWI)
+ * short version
+ * short reserved
+ * int   nodes
+ * int   exceptions
+ * long  pairs      (size of the relation)
+ * int   offsets[nodes]               (sorted synset offsets)
+ * int   labels[2 * nodes]            (pre-order and post-order number of each synset)
+ * int   exceptionStarts[nodes + 1]   (exceptions of synset i are exceptionTargets[starts[i]..starts[i + 1]))
+ * int   exceptionTargets[exceptions] (sorted ancestor offsets of each synset)
+ * int   table[2 * slots]             (offset and index + 1 of a synset, 0 marks empty slots)
+ * </pre>
+ * The hash table has twice as many slots as there are synsets, rounded up to a power of two.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+class IntervalKeySet implements IKeySet {
+
+    public static final int MAGIC = 0x49574D53; // "SMWI" in little-endian
+    public static final short VERSION = 2;
+
+    private static final int HEADER_SIZE = 24;
+
+    private static final int NONE = -1;
+
+    private final IntBuffer offsets;
+    private final IntBuffer labels;
+    private final IntBuffer exceptionStarts;
+    private final IntBuffer exceptionTargets;
+    private final IntBuffer table;
+    private final int nodes;
+    private final int mask;
+    private final int size;
+
+    private IntervalKeySet(IntBuffer offsets, IntBuffer labels, IntBuffer exceptionStarts, IntBuffer exceptionTargets,
+                           IntBuffer table, int size) {
+        this.offsets = offsets;
+        this.labels = labels;
+        this.exceptionStarts = exceptionStarts;
+        this.exceptionTargets = exceptionTargets;
+        this.table = table;
+        this.nodes = offsets.limit();
+        this.mask = table.limit() / 2 - 1;
+        this.size = size;
+    }
+
+    public boolean contains(long key) {
+        if (0 > key) {
+            return false;
+        }
+        int source = (int) (key >>> 32);
+        int target = (int) key;
+        int s = find(source);
+        if (NONE == s) {
+            return false;
+        }
+        int t = find(target);
+        if (NONE == t) {
+            return false;
+        }
+        if (s != t && labels.get(2 * t) <= labels.get(2 * s) && labels.get(2 * s + 1) <= labels.get(2 * t + 1)) {
+            return true;
+        }
+        return 0 <= searchExceptions(s, target);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the amount of pairs which are not covered by the intervals.
+     *
+     * @return the amount of pairs which are not covered by the intervals
+     */
+    public int getExceptionCount() {
+        return exceptionTargets.limit();
+    }
+
+    /**
+     * Lists the pairs of the relation from the labels and the exceptions, independently of the lookups.
+     *
+     * @return sorted keys, (source &lt;&lt; 32) + ancestor
+     * @throws SMatchException if the labels are not the pre-order and post-order numbers of a forest
+     */
+    public long[] toKeys() throws SMatchException {
+        // node i starts at its pre-order number and ends at its post-order number, ~i marks the end
+        int[] events = new int[2 * nodes];
+        Arrays.fill(events, Integer.MIN_VALUE);
+        for (int i = 0; i < nodes; i++) {
+            int pre = labels.get(2 * i);
+            int post = labels.get(2 * i + 1);
+            if (0 > pre || pre >= post || post >= events.length
+                    || Integer.MIN_VALUE != events[pre] || Integer.MIN_VALUE != events[post]) {
+                throw new SMatchException("Invalid interval labels of " + offsets.get(i) + ": " + pre + ", " + post);
+            }
+            events[pre] = i;
+            events[post] = ~i;
+        }
+        // the open intervals at the start of a node are its ancestors in the forest
+        LongList keys = new LongList();
+        int[] stack = new int[nodes];
+        int top = 0;
+        for (int event : events) {
+            if (0 <= event) {
+                long source = (long) offsets.get(event) << 32;
+                for (int i = 0; i < top; i++) {
+                    keys.add(source + offsets.get(stack[i]));
+                }
+                stack[top++] = event;
+            } else if (0 == top || stack[--top] != ~event) {
+                throw new SMatchException("Interval labels of " + offsets.get(~event) + " are not nested");
+            }
+        }
+        for (int i = 0; i < nodes; i++) {
+            long source = (long) offsets.get(i) << 32;
+            for (int j = exceptionStarts.get(i); j < exceptionStarts.get(i + 1); j++) {
+                keys.add(source + exceptionTargets.get(j));
+            }
+        }
+        return keys.toSortedArray();
+    }
+
+    private int find(int offset) {
+        int i = hash(offset) & mask;
+        int index;
+        while (0 != (index = table.get(2 * i + 1))) {
+            if (offset == table.get(2 * i)) {
+                return index - 1;
+            }
+            i = (i + 1) & mask;
+        }
+        return NONE;
+    }
+
+    private int searchExceptions(int node, int target) {
+        int low = exceptionStarts.get(node);
+        int high = exceptionStarts.get(node + 1) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midVal = exceptionTargets.get(mid);
+            if (midVal < target) {
+                low = mid + 1;
+            } else if (midVal > target) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return NONE;
+    }
+
+    private static int hash(int offset) {
+        return (int) HashKeySet.mix(offset);
+    }
+
+    private static int slots(int nodes) {
+        // keep load factor at or below 0.5
+        return Integer.highestOneBit(Math.max(2, nodes) * 2 - 1) << 1;
+    }
+
+    private static int[] createTable(int[] offsets) {
+        int slots = slots(offsets.length);
+        int mask = slots - 1;
+        int[] result = new int[2 * slots];
+        for (int n = 0; n < offsets.length; n++) {
+            int i = hash(offsets[n]) & mask;
+            while (0 != result[2 * i + 1]) {
+                i = (i + 1) & mask;
+            }
+            result[2 * i] = offsets[n];
+            result[2 * i + 1] = n + 1;
+        }
+        return result;
+    }
+
+    /**
+     * Labels a hierarchy and collects the exceptions, so that the result contains exactly the pairs of the closure.
+     *
+     * @param offsets sorted distinct synset offsets
+     * @param parents index of the parent of each synset in the spanning forest, -1 for roots
+     * @param closure sorted keys of the transitive relation, (source &lt;&lt; 32) + ancestor
+     * @return interval key set
+     * @throws SMatchException if the forest is not a forest, it relates pairs missing from the closure
+     *                         or the closure relates synsets missing from the offsets
+     */
+    public static IntervalKeySet create(int[] offsets, int[] parents, long[] closure) throws SMatchException {
+        int n = offsets.length;
+        // children lists, in compressed sparse row form
+        int[] childStarts = new int[n + 1];
+        for (int parent : parents) {
+            if (NONE != parent) {
+                childStarts[parent + 1]++;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            childStarts[i + 1] += childStarts[i];
+        }
+        int[] children = new int[childStarts[n]];
+        int[] fill = Arrays.copyOf(childStarts, n);
+        for (int i = 0; i < n; i++) {
+            if (NONE != parents[i]) {
+                children[fill[parents[i]]++] = i;
+            }
+        }
+
+        // iterative depth-first numbering
+        int[] labels = new int[2 * n];
+        int[] stack = new int[n];
+        int[] next = Arrays.copyOf(childStarts, n);
+        int counter = 0;
+        int visited = 0;
+        for (int root = 0; root < n; root++) {
+            if (NONE == parents[root]) {
+                int top = 0;
+                stack[top] = root;
+                labels[2 * root] = counter++;
+                visited++;
+                while (0 <= top) {
+                    int node = stack[top];
+                    if (next[node] < childStarts[node + 1]) {
+                        int child = children[next[node]++];
+                        labels[2 * child] = counter++;
+                        visited++;
+                        stack[++top] = child;
+                    } else {
+                        labels[2 * node + 1] = counter++;
+                        top--;
+                    }
+                }
+            }
+        }
+        if (visited != n) {
+            throw new SMatchException("Spanning forest contains cycles: " + (n - visited) + " synsets unreachable from roots");
+        }
+
+        // every pair covered by the forest must belong to the closure
+        int covered = 0;
+        for (int i = 0; i < n; i++) {
+            for (int a = parents[i]; NONE != a; a = parents[a]) {
+                long key = ((long) offsets[i] << 32) + offsets[a];
+                if (0 > Arrays.binarySearch(closure, key)) {
+                    throw new SMatchException("Spanning forest relates " + offsets[i] + " and " + offsets[a] + ", which are not in the closure");
+                }
+                covered++;
+            }
+        }
+
+        // the closure is sorted by source and then by ancestor, so are the exceptions of each source
+        int[] table = createTable(offsets);
+        IntervalKeySet forest = new IntervalKeySet(IntBuffer.wrap(offsets), IntBuffer.wrap(labels),
+                IntBuffer.wrap(new int[n + 1]), IntBuffer.allocate(0), IntBuffer.wrap(table), covered);
+        int[] exceptionStarts = new int[n + 1];
+        int[] exceptionTargets = new int[closure.length];
+        int count = 0;
+        for (long key : closure) {
+            int source = forest.find((int) (key >>> 32));
+            if (0 > key || NONE == source || NONE == forest.find((int) key)) {
+                throw new SMatchException("Closure relates synsets outside of the hierarchy: " + (key >>> 32) + " < " + (key & 0xffffffffL));
+            }
+            if (!forest.contains(key)) {
+                exceptionStarts[source + 1]++;
+                exceptionTargets[count++] = (int) key;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            exceptionStarts[i + 1] += exceptionStarts[i];
+        }
+        if (covered + count != closure.length) {
+            throw new SMatchException("Interval labelling covers " + covered + " pairs and " + count
+                    + " exceptions, expected " + closure.length + " pairs");
+        }
+        return new IntervalKeySet(IntBuffer.wrap(offsets), IntBuffer.wrap(labels), IntBuffer.wrap(exceptionStarts),
+                IntBuffer.wrap(Arrays.copyOf(exceptionTargets, count)), IntBuffer.wrap(table), closure.length);
+    }
+
+    /**
+     * Writes the labelling into a file.
+     *
+     * @param fileName file name
+     * @throws SMatchException SMatchException
+     */
+    public void write(String fileName) throws SMatchException {
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "rw")) {
+            file.setLength(0);
+            FileChannel channel = file.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocate(RelationFiles.WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC);
+            buffer.putShort(VERSION);
+            buffer.putShort((short) 0);
+            buffer.putInt(nodes);
+            buffer.putInt(exceptionTargets.limit());
+            buffer.putLong(size);
+            for (IntBuffer section : new IntBuffer[]{offsets, labels, exceptionStarts, exceptionTargets, table}) {
+                for (int i = 0; i < section.limit(); i++) {
+                    if (!buffer.hasRemaining()) {
+                        RelationFiles.flush(channel, buffer);
+                    }
+                    buffer.putInt(section.get(i));
+                }
+            }
+            RelationFiles.flush(channel, buffer);
+        } catch (IOException e) {
+            throw new SMatchException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Maps the labelling from a file into memory.
+     *
+     * @param fileName file name
+     * @return interval key set
+     * @throws SMatchException SMatchException
+     */
+    public static IntervalKeySet read(String fileName) throws SMatchException {
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "r")) {
+            FileChannel channel = file.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && -1 < channel.read(header)) {
+                // read the header fully
+            }
+            header.flip();
+            if (HEADER_SIZE > header.remaining() || MAGIC != header.getInt()) {
+                throw new SMatchException("Unknown interval file format: " + fileName);
+            }
+            short version = header.getShort();
+            if (VERSION != version) {
+                throw new SMatchException("Unsupported interval file version " + version + ": " + fileName);
+            }
+            header.getShort();
+            int nodes = header.getInt();
+            int exceptions = header.getInt();
+            long size = header.getLong();
+            if (0 > nodes || 0 > exceptions || Integer.MAX_VALUE < size || (1 << 26) < nodes
+                    || Integer.MAX_VALUE / 4 < exceptions) {
+                throw new SMatchException("Invalid interval file header: " + fileName);
+            }
+            long labelsStart = HEADER_SIZE + 4L * nodes;
+            long exceptionStartsStart = labelsStart + 8L * nodes;
+            long exceptionTargetsStart = exceptionStartsStart + 4L * (nodes + 1);
+            long tableStart = exceptionTargetsStart + 4L * exceptions;
+            IntBuffer offsets = RelationFiles.map(channel, HEADER_SIZE, 4L * nodes).asIntBuffer();
+            IntBuffer labels = RelationFiles.map(channel, labelsStart, 8L * nodes).asIntBuffer();
+            IntBuffer exceptionStarts = RelationFiles.map(channel, exceptionStartsStart, 4L * (nodes + 1)).asIntBuffer();
+            IntBuffer exceptionTargets = RelationFiles.map(channel, exceptionTargetsStart, 4L * exceptions).asIntBuffer();
+            IntBuffer table = RelationFiles.map(channel, tableStart, 8L * slots(nodes)).asIntBuffer();
+            return new IntervalKeySet(offsets, labels, exceptionStarts, exceptionTargets, table, (int) size);
+        } catch (IOException e) {
+            throw new SMatchException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+import it.unitn.disi.smatch.data.ling.ISense;
+import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import net.sf.extjwnl.data.POS;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Base class for WN matchers which answer from precomputed sets of sense pair keys.
+ * The keys are packed synset offsets: (source &lt;&lt; 32) + target for directed relations
+ * and (max &lt;&lt; 32) + min for symmetric ones. Subclasses decide how the keys are stored and searched.
+ *
+ * @author Mikalai Yatskevich mikalai.yatskevich@comlab.ox.ac.uk
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public abstract class KeySetSenseMatcher implements IBatchSenseMatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(KeySetSenseMatcher.class);
+
+    // arrays with WordNet keys
+    private final IKeySet adj_syn;
+    private final IKeySet adj_opp;
+    private final IKeySet noun_mg;
+    private final IKeySet noun_opp;
+    private final IKeySet adv_opp;
+    private final IKeySet verb_mg;
+    private final IKeySet nominalizations;
+
+    protected KeySetSenseMatcher(
+            IKeySet adjectiveSynonyms,
+            IKeySet adjectiveAntonyms,
+            IKeySet nounHypernyms,
+            IKeySet nounAntonyms,
+            IKeySet adverbAntonyms,
+            IKeySet verbHypernyms,
+            IKeySet nominalizations
+    ) {
+        this.adj_syn = adjectiveSynonyms;
+        this.adj_opp = adjectiveAntonyms;
+        this.noun_mg = nounHypernyms;
+        this.noun_opp = nounAntonyms;
+        this.adv_opp = adverbAntonyms;
+        this.verb_mg = verbHypernyms;
+        this.nominalizations = nominalizations;
+    }
+
+    public char getRelation(List<ISense> sourceSenses, List<ISense> targetSenses) {
+        // Check for synonymy
+        for (ISense sourceSense : sourceSenses) {
+            for (ISense targetSense : targetSenses) {
+                if (isSourceSynonymTarget(sourceSense, targetSense)) {
+                    return IMappingElement.EQUIVALENCE;
+                }
+            }
+        }
+        // Check for less general than
+        for (ISense sourceSense : sourceSenses) {
+            for (ISense targetSense : targetSenses) {
+                if (isSourceLessGeneralThanTarget(sourceSense, targetSense)) {
+                    return IMappingElement.LESS_GENERAL;
+                }
+            }
+        }
+        // Check for more general than
+        for (ISense sourceSense : sourceSenses) {
+            for (ISense targetSense : targetSenses) {
+                if (isSourceMoreGeneralThanTarget(sourceSense, targetSense)) {
+                    return IMappingElement.MORE_GENERAL;
+                }
+            }
+        }
+        // Check for opposite meaning
+        for (ISense sourceSense : sourceSenses) {
+            for (ISense targetSense : targetSenses) {
+                if (isSourceOppositeToTarget(sourceSense, targetSense)) {
+                    return IMappingElement.DISJOINT;
+                }
+            }
+        }
+        return IMappingElement.IDK;
+    }
+
+    public char[][] getRelations(List<List<ISense>> sourceSenses, List<List<ISense>> targetSenses) {
+        char[][] result = new char[sourceSenses.size()][targetSenses.size()];
+        getRelations(sourceSenses, targetSenses, result, 0, result.length);
+        return result;
+    }
+
+    public void getRelations(List<List<ISense>> sourceSenses, List<List<ISense>> targetSenses,
+                             char[][] relations, int fromRow, int toRow) {
+        RelationMatrix.checkRange(sourceSenses, targetSenses, relations, fromRow, toRow);
+        // offsets and parts of speech of the WordNet senses of each concept, other senses relate to nothing
+        long[][] targetOffsets = new long[targetSenses.size()][];
+        POS[][] targetPOS = new POS[targetSenses.size()][];
+        for (int j = 0; j < targetOffsets.length; j++) {
+            targetOffsets[j] = offsets(targetSenses.get(j));
+            targetPOS[j] = pos(targetSenses.get(j));
+        }
+        for (int i = fromRow; i < toRow; i++) {
+            long[] sourceOffsets = offsets(sourceSenses.get(i));
+            POS[] sourcePOS = pos(sourceSenses.get(i));
+            for (int j = 0; j < targetOffsets.length; j++) {
+                int rank = RelationMatrix.IDK;
+                for (int s = 0; s < sourceOffsets.length && RelationMatrix.EQUIVALENCE < rank; s++) {
+                    for (int t = 0; t < targetOffsets[j].length && RelationMatrix.EQUIVALENCE < rank; t++) {
+                        rank = getRank(sourceOffsets[s], targetOffsets[j][t], sourcePOS[s], targetPOS[j][t], rank);
+                    }
+                }
+                relations[i][j] = RelationMatrix.RANKED[rank];
+            }
+        }
+    }
+
+    /**
+     * Checks the relations ranked before the given rank, in order of precedence.
+     *
+     * @return the rank of the first relation which holds, or the given rank
+     */
+    private int getRank(long sourceSense, long targetSense, POS sourcePOS, POS targetPOS, int rank) {
+        if (RelationMatrix.EQUIVALENCE < rank && isSourceSynonymTargetInt(sourceSense, targetSense, sourcePOS, targetPOS)) {
+            return RelationMatrix.EQUIVALENCE;
+        }
+        if (RelationMatrix.LESS_GENERAL < rank && isSourceLessGeneralThanTargetInt(sourceSense, targetSense, sourcePOS, targetPOS)) {
+            return RelationMatrix.LESS_GENERAL;
+        }
+        if (RelationMatrix.MORE_GENERAL < rank && isSourceLessGeneralThanTargetInt(targetSense, sourceSense, targetPOS, sourcePOS)) {
+            return RelationMatrix.MORE_GENERAL;
+        }
+        if (RelationMatrix.DISJOINT < rank && isSourceOppositeToTargetInt(sourceSense, targetSense, sourcePOS, targetPOS)) {
+            return RelationMatrix.DISJOINT;
+        }
+        return rank;
+    }
+
+    private static long[] offsets(List<ISense> senses) {
+        long[] result = new long[count(senses)];
+        int i = 0;
+        for (ISense sense : senses) {
+            if (sense instanceof WordNetSense) {
+                result[i++] = ((WordNetSense) sense).getOffset();
+            }
+        }
+        return result;
+    }
+
+    private static POS[] pos(List<ISense> senses) {
+        POS[] result = new POS[count(senses)];
+        int i = 0;
+        for (ISense sense : senses) {
+            if (sense instanceof WordNetSense) {
+                result[i++] = ((WordNetSense) sense).getPOS();
+            }
+        }
+        return result;
+    }
+
+    private static int count(List<ISense> senses) {
+        int result = 0;
+        for (ISense sense : senses) {
+            if (sense instanceof WordNetSense) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether the antonyms between senses of the parts of speech are precomputed.
+     * Antonyms of verbs are not, all other relations are precomputed for all parts of speech.
+     *
+     * @param sourcePOS source part of speech
+     * @param targetPOS target part of speech
+     * @return true if the antonyms are precomputed
+     */
+    static boolean hasAntonyms(POS sourcePOS, POS targetPOS) {
+        return POS.VERB != sourcePOS || POS.VERB != targetPOS;
+    }
+
+    private boolean isSourceOppositeToTargetInt(long sourceSense, long targetSense, POS sourcePOS, POS targetPOS) {
+        long key;
+        if (targetSense > sourceSense) {
+            key = (targetSense << 32) + sourceSense;
+        } else {
+            key = (sourceSense << 32) + targetSense;
+        }
+
+        if ((POS.NOUN == sourcePOS) && (POS.NOUN == targetPOS)) {
+            if (noun_opp.contains(key)) {
+                log.trace("Found ! using ! (ANTONYM) between nouns");
+                return true;
+            }
+        } else {
+            if ((POS.ADJECTIVE == sourcePOS) && (POS.ADJECTIVE == targetPOS)) {
+                if (adj_opp.contains(key)) {
+                    log.trace("Found ! using ! (ANTONYM) between adjectives");
+                    return true;
+                }
+            } else {
+                if ((POS.ADVERB == sourcePOS) && (POS.ADVERB == targetPOS)) {
+                    if (adv_opp.contains(key)) {
+                        log.trace("Found ! using ! (ANTONYM) between adverbs");
+                        return true;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private boolean isSourceLessGeneralThanTargetInt(long sourceSense, long targetSense, POS sourcePOS, POS targetPOS) {
+        long key = (sourceSense << 32) + targetSense;
+        if ((POS.NOUN == sourcePOS) && (POS.NOUN == targetPOS)) {
+            if (noun_mg.contains(key)) {
+                log.trace("Found < using @,#m,#s,#p (HYPERNYM, MEMBER_, SUBSTANCE_, PART_HOLONYM) between nouns");
+                return true;
+            }
+        } else {
+            if ((POS.VERB == sourcePOS) && (POS.VERB == targetPOS)) {
+                if (verb_mg.contains(key)) {
+                    log.trace("Found < using @ (HYPERNYM) between verbs");
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private boolean isSourceSynonymTargetInt(long sourceSense, long targetSense, POS sourcePOS, POS targetPOS) {
+        if (sourceSense == targetSense) {
+            return true;
+        }
+
+        long key;
+        if (targetSense > sourceSense) {
+            key = (targetSense << 32) + sourceSense;
+        } else {
+            key = (sourceSense << 32) + targetSense;
+        }
+
+        if ((POS.ADJECTIVE == sourcePOS) && (POS.ADJECTIVE == targetPOS)) {
+            if (adj_syn.contains(key)) {
+                log.trace("Found = using & (SIMILAR_TO) between adjectives");
+                return true;
+            }
+        }
+        if ((POS.NOUN == sourcePOS) && (POS.VERB == targetPOS)) {
+            key = (targetSense << 32) + sourceSense;
+            if (nominalizations.contains(key)) {
+                log.trace("Found = using + (DERIVATION) between a noun and a verb");
+                return true;
+            }
+        }
+        if ((POS.VERB == sourcePOS) && (POS.NOUN == targetPOS)) {
+            key = (sourceSense << 32) + targetSense;
+            if (nominalizations.contains(key)) {
+                log.trace("Found = using + (DERIVATION) between a verb and a noun");
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isSourceMoreGeneralThanTarget(ISense source, ISense target) {
+        return isSourceLessGeneralThanTarget(target, source);
+    }
+
+    public boolean isSourceLessGeneralThanTarget(ISense source, ISense target) {
+        return (source instanceof WordNetSense) && (target instanceof WordNetSense)
+                && isSourceLessGeneralThanTargetInt(
+                ((WordNetSense) source).getOffset(),
+                ((WordNetSense) target).getOffset(),
+                ((WordNetSense) source).getPOS(),
+                ((WordNetSense) target).getPOS());
+    }
+
+    public boolean isSourceSynonymTarget(ISense source, ISense target) {
+        return (source instanceof WordNetSense) && (target instanceof WordNetSense)
+                && isSourceSynonymTargetInt(
+                ((WordNetSense) source).getOffset(),
+                ((WordNetSense) target).getOffset(),
+                ((WordNetSense) source).getPOS(),
+                ((WordNetSense) target).getPOS());
+    }
+
+    public boolean isSourceOppositeToTarget(ISense source, ISense target) {
+        return (source instanceof WordNetSense) && (target instanceof WordNetSense)
+                && isSourceOppositeToTargetInt(
+                ((WordNetSense) source).getOffset(),
+                ((WordNetSense) target).getOffset(),
+                ((WordNetSense) source).getPOS(),
+                ((WordNetSense) target).getPOS());
+    }
+
+    /**
+     * Returns the counters of the Bloom filters, for the relations which have them.
+     * A filter is used when a filter file is present next to the relation file,
+     * see {@link InMemoryWordNetBinaryArray#createWordNetCaches(String, String, String, String, String, String, String, String, InMemoryWordNetBinaryArray.Layout, boolean)}.
+     *
+     * @return the counters of the Bloom filters
+     */
+    public List<FilterStatistics> getFilterStatistics() {
+        List<FilterStatistics> result = new ArrayList<>();
+        for (IKeySet keys : Arrays.asList(adj_syn, adj_opp, noun_mg, noun_opp, adv_opp, verb_mg, nominalizations)) {
+            if (keys instanceof FilteredKeySet) {
+                result.add(((FilteredKeySet) keys).getStatistics());
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,375 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+import it.unitn.disi.smatch.SMatchException;
+import it.unitn.disi.smatch.data.ling.ISense;
+import it.unitn.disi.smatch.oracles.ILinguisticOracle;
+import it.unitn.disi.smatch.oracles.LinguisticOracleException;
+import net.sf.extjwnl.data.POS;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Implements a Linguistic Oracle over a lexicon compiled from WordNet, see {@link WordNetLexicon}. The lexicon
+ * file is memory-mapped, therefore the oracle starts instantly and does not initialize an extJWNL dictionary.
+ * <p/>
+ * Lemmas are looked up as {@link WordNet} does, with the morphological operations of the default extJWNL
+ * configuration replayed over the lexicon: the exceptions, the detachment of regular suffixes and the tokenizer,
+ * which looks up the phrases formed by the tokens and their base forms.
+ * <p/>
+ * The senses have only the part of speech and the offset of their synsets, which is all the relation matchers
+ * need, see {@link InMemoryWordNetBinaryArray}. Glosses, lemmas and hierarchies of the senses need a dictionary.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class LexiconOracle implements ILinguisticOracle {
+
+    private static final Logger log = LoggerFactory.getLogger(LexiconOracle.class);
+
+    private static final Pattern offset = Pattern.compile("\\d+");
+
+    // suffixes and their replacements, by part of speech, in the order of the extJWNL configuration
+    private static final String[][][] SUFFIXES = new String[POS.values().length][][];
+
+    static {
+        SUFFIXES[POS.NOUN.ordinal()] = new String[][]{{"s", ""}, {"ses", "s"}, {"xes", "x"}, {"zes", "z"},
+                {"ches", "ch"}, {"shes", "sh"}, {"men", "man"}, {"ies", "y"}};
+        SUFFIXES[POS.VERB.ordinal()] = new String[][]{{"s", ""}, {"ies", "y"}, {"es", "e"}, {"es", ""},
+                {"ed", "e"}, {"ed", ""}, {"ing", "e"}, {"ing", ""}};
+        SUFFIXES[POS.ADJECTIVE.ordinal()] = new String[][]{{"er", ""}, {"est", ""}, {"er", "e"}, {"est", "e"}};
+        SUFFIXES[POS.ADVERB.ordinal()] = new String[0][];
+    }
+
+    // delimiters of the tokens of a phrase
+    private static final String[] DELIMITERS = {" ", "-"};
+
+    private final WordNetLexicon lexicon;
+
+    private final String multiwordsFileName;
+    private volatile MultiwordIndex multiwords;
+    private final Object multiwordsLock = new Object();
+
+    public LexiconOracle(String lexiconFileName) throws SMatchException {
+        this(lexiconFileName, null);
+    }
+
+    /**
+     * Constructs an instance.
+     *
+     * @param lexiconFileName    lexicon file name
+     * @param multiwordsFileName multiwords file name, null to create the multiwords from the lexicon
+     * @throws SMatchException SMatchException
+     */
+    public LexiconOracle(String lexiconFileName, String multiwordsFileName) throws SMatchException {
+        log.info("Loading lexicon: " + lexiconFileName);
+        this.lexicon = WordNetLexicon.read(lexiconFileName);
+        log.info("loaded lexicon: " + lexicon.size());
+        this.multiwordsFileName = multiwordsFileName;
+    }
+
+    /**
+     * Returns the senses of the label, in the order of {@link WordNet#getSenses(String)}.
+     *
+     * @param label label
+     * @return unmodifiable list of senses
+     * @throws LinguisticOracleException LinguisticOracleException
+     */
+    public List<ISense> getSenses(String label) throws LinguisticOracleException {
+        List<ISense> result = null;
+        for (POS pos : POS.values()) {
+            int lemma = lookupIndexWord(pos, label);
+            if (0 <= lemma) {
+                if (null == result) {
+                    result = new ArrayList<>();
+                }
+                for (long synset : lexicon.getOffsets(lemma, pos)) {
+                    result.add(new WordNetSense(pos, synset, null));
+                }
+            }
+        }
+        return null == result ? Collections.<ISense>emptyList() : Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Returns the base forms of the derivation, or the derivation itself if it has none.
+     *
+     * @param derivation derivation
+     * @return unmodifiable list of base forms
+     * @throws LinguisticOracleException LinguisticOracleException
+     */
+    public List<String> getBaseForms(String derivation) throws LinguisticOracleException {
+        Set<String> result = new LinkedHashSet<>();
+        for (POS pos : POS.values()) {
+            int lemma = lookupIndexWord(pos, derivation);
+            if (0 <= lemma) {
+                result.add(lexicon.getString(lemma));
+            }
+        }
+        if (result.isEmpty()) {
+            return Collections.singletonList(derivation);
+        }
+        return Collections.unmodifiableList(new ArrayList<>(result));
+    }
+
+    public boolean isEqual(String str1, String str2) throws LinguisticOracleException {
+        for (POS pos : POS.values()) {
+            int lemma = lookupIndexWord(pos, str1);
+            if (0 <= lemma && lemma == lookupIndexWord(pos, str2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates a sense from its id. The lexicon does not list the synsets, therefore the offset is not checked.
+     *
+     * @param id sense id, part of speech key and synset offset
+     * @return sense
+     * @throws LinguisticOracleException if the id is malformed
+     */
+    public ISense createSense(String id) throws LinguisticOracleException {
+        if (id.length() < 3 || 1 != id.indexOf('#')) {
+            throw new LinguisticOracleException("Malformed sense id: " + id);
+        }
+        final String pos = id.substring(0, 1);
+        final String off = id.substring(2);
+        if (!"navr".contains(pos) || !offset.matcher(off).matches()) {
+            throw new LinguisticOracleException("Malformed sense id: " + id);
+        }
+        try {
+            return new WordNetSense(POS.getPOSForKey(pos), Long.parseLong(off), null);
+        } catch (NumberFormatException e) {
+            throw new LinguisticOracleException("Malformed sense id: " + id, e);
+        }
+    }
+
+    /**
+     * Returns the remaining tokens of all multiwords starting with the token, see {@link WordNet#getMultiwords(String)}.
+     *
+     * @param beginning the first token
+     * @return the remaining tokens of each multiword or null if there are none
+     * @throws LinguisticOracleException LinguisticOracleException
+     */
+    public List<List<String>> getMultiwords(String beginning) throws LinguisticOracleException {
+        return getMultiwordIndex().getMultiwords(beginning);
+    }
+
+    /**
+     * Returns the multiword index, loading or creating it on the first call.
+     *
+     * @return the multiword index
+     * @throws LinguisticOracleException if the multiwords can not be loaded
+     */
+    public MultiwordIndex getMultiwordIndex() throws LinguisticOracleException {
+        MultiwordIndex result = multiwords;
+        if (null == result) {
+            synchronized (multiwordsLock) {
+                result = multiwords;
+                if (null == result) {
+                    if (null != multiwordsFileName) {
+                        try {
+                            log.info("Loading multiwords: " + multiwordsFileName);
+                            result = MultiwordIndex.read(multiwordsFileName);
+                            log.info("loaded multiwords: " + result.size());
+                        } catch (SMatchException e) {
+                            throw new LinguisticOracleException(e.getMessage(), e);
+                        }
+                    } else {
+                        result = new MultiwordIndex(lexicon.getMultiwords());
+                    }
+                    multiwords = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the lemma of the derivation, as Dictionary.lookupIndexWord does: the derivation itself if it is
+     * a lemma, otherwise the first base form found by the morphological operations.
+     *
+     * @param pos        part of speech
+     * @param derivation derivation
+     * @return the position of the lemma in the lexicon or -1 if there is none
+     */
+    private int lookupIndexWord(POS pos, String derivation) {
+        String query = derivation.trim().toLowerCase();
+        int result = getIndexWord(pos, query);
+        if (0 > result && 0 < query.length()) {
+            // operations run in order until one of them finds base forms
+            List<String> forms = new ArrayList<>();
+            if (lookupExceptions(pos, query, forms) || detachSuffixes(pos, query, forms) || tokenize(pos, query, forms)) {
+                if (!forms.isEmpty()) {
+                    result = getIndexWord(pos, forms.get(0));
+                }
+            }
+        }
+        return result;
+    }
+
+    private int getIndexWord(POS pos, String lemma) {
+        int result = find(lemma);
+        return 0 <= result && lexicon.isLemma(result, pos) ? result : -1;
+    }
+
+    private int find(String string) {
+        String query = string.trim().toLowerCase();
+        if (0 == query.length()) {
+            return -1;
+        }
+        // lemmas are stored with spaces, the dictionary files with underscores
+        return lexicon.find(query.replace('_', ' '));
+    }
+
+    private boolean lookupExceptions(POS pos, String derivation, List<String> forms) {
+        int id = find(derivation);
+        if (0 > id) {
+            return false;
+        }
+        List<String> exceptions = lexicon.getExceptions(id, pos);
+        for (String exception : exceptions) {
+            add(forms, exception);
+        }
+        return !exceptions.isEmpty();
+    }
+
+    private boolean detachSuffixes(POS pos, String derivation, List<String> forms) {
+        boolean result = false;
+        for (String[] suffix : SUFFIXES[pos.ordinal()]) {
+            if (derivation.endsWith(suffix[0])) {
+                String stripped = derivation.substring(0, derivation.length() - suffix[0].length()) + suffix[1];
+                if (0 <= getIndexWord(pos, stripped)) {
+                    add(forms, stripped);
+                    result = true;
+                }
+                if (lookupExceptions(pos, stripped, forms)) {
+                    result = true;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Looks up the phrases formed by each run of consecutive tokens, taking each token as is or in one
+     * of its base forms, and joining the tokens with each delimiter or without one.
+     */
+    private boolean tokenize(POS pos, String derivation, List<String> forms) {
+        List<String> tokens = tokens(derivation);
+        List<List<String>> tokenForms = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            List<String> baseForms = new ArrayList<>();
+            baseForms.add(token);
+            lookupExceptions(pos, token, baseForms);
+            detachSuffixes(pos, token, baseForms);
+            tokenForms.add(baseForms);
+        }
+        boolean result = false;
+        for (int from = 0; from < tokens.size(); from++) {
+            for (int to = tokens.size() - 1; to >= from; to--) {
+                if (tryAllForms(pos, tokenForms.subList(from, to + 1), forms)) {
+                    result = true;
+                }
+            }
+        }
+        return result;
+    }
+
+    private boolean tryAllForms(POS pos, List<List<String>> tokenForms, List<String> forms) {
+        int[] indexes = new int[tokenForms.size()];
+        String[] words = new String[indexes.length];
+        boolean result = false;
+        while (true) {
+            for (int i = 0; i < indexes.length; i++) {
+                words[i] = tokenForms.get(i).get(indexes[i]);
+            }
+            for (String delimiter : DELIMITERS) {
+                if (tryAllDelimiters(pos, words, delimiter, forms)) {
+                    result = true;
+                }
+            }
+            // the last token varies fastest
+            int i = indexes.length - 1;
+            while (0 <= i && indexes[i] == tokenForms.get(i).size() - 1) {
+                indexes[i--] = 0;
+            }
+            if (0 > i) {
+                return result;
+            }
+            indexes[i]++;
+        }
+    }
+
+    private boolean tryAllDelimiters(POS pos, String[] words, String delimiter, List<String> forms) {
+        // bit i joins the words i and i + 1 without the delimiter
+        BitSet joined = new BitSet();
+        boolean result = false;
+        do {
+            StringBuilder phrase = new StringBuilder(words[0]);
+            for (int i = 1; i < words.length; i++) {
+                if (!joined.get(i - 1)) {
+                    phrase.append(delimiter);
+                }
+                phrase.append(words[i]);
+            }
+            String lemma = phrase.toString();
+            if (0 <= getIndexWord(pos, lemma)) {
+                add(forms, lemma);
+                result = true;
+            }
+        } while (increment(joined, words.length - 1));
+        return result;
+    }
+
+    private static boolean increment(BitSet bits, int size) {
+        int i = size - 1;
+        while (0 <= i && bits.get(i)) {
+            bits.clear(i--);
+        }
+        if (0 > i) {
+            return false;
+        }
+        bits.set(i);
+        return true;
+    }
+
+    /**
+     * Splits the derivation into runs of lowercase latin letters and apostrophes.
+     */
+    private static List<String> tokens(String derivation) {
+        List<String> result = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= derivation.length(); i++) {
+            char c = i < derivation.length() ? derivation.charAt(i) : ' ';
+            boolean letter = ('a' <= c && c <= 'z') || '\'' == c;
+            if (letter && 0 > start) {
+                start = i;
+            } else if (!letter && 0 <= start) {
+                result.add(derivation.substring(start, i));
+                start = -1;
+            }
+        }
+        return result;
+    }
+
+    private static void add(List<String> forms, String form) {
+        if (!forms.contains(form)) {
+            forms.add(form);
+        }
+    }
+
+    /**
+     * Compiles the lexicon of a dictionary into a file.
+     *
+     * @param jwnlPropertiesPath extJWNL properties file path, null for the default resource instance
+     * @param lexiconFileName    lexicon file name
+     * @throws SMatchException SMatchException
+     */
+    public static void createLexicon(String jwnlPropertiesPath, String lexiconFileName) throws SMatchException {
+        WordNetLexicon.create(WordNet.getDictionary(jwnlPropertiesPath)).write(lexiconFileName);
+        log.info("Created lexicon: " + lexiconFileName);
+    }
+}
@@ -0,0 +1,140 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded cache of small values under primitive long keys, which allocates nothing on lookups and updates.
+ * The table is set-associative: a key hashes to a set of {@link #WAYS} slots, one cache line, and a full set evicts
+ * with the clock (second chance) policy, skipping slots used since the last pass. Each slot is a single long holding
+ * the key, the value and the used bit, so slots are read and written atomically without locks.
+ * <p/>
+ * Concurrent puts of the same key may store it twice in a set. Both copies hold the same value
+ * as long as the value of a key never changes, which is the case for sense pair relations.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+class LongByteCache {
+
+    /**
+     * Slots per set.
+     */
+    public static final int WAYS = 8;
+
+    /**
+     * Keys must be below this value.
+     */
+    public static final long KEY_LIMIT = 1L << 60;
+
+    /**
+     * Values must be between 1 and this value.
+     */
+    public static final byte VALUE_LIMIT = 7;
+
+    private static final long EMPTY = 0;
+    private static final long USED = 1L << 63;
+    private static final long ENTRY = ~USED;
+    private static final int VALUE_BITS = 3;
+    private static final long VALUE_MASK = (1 << VALUE_BITS) - 1;
+
+    private final AtomicLongArray slots;
+    private final long sets;
+
+    private final AtomicLong size = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Constructs an empty cache of at most capacity slots, 8 bytes each: the capacity is rounded down
+     * to a multiple of {@link #WAYS}, but the cache has at least one set. Keys do not spread evenly over the sets,
+     * so a set may evict before the whole table is full.
+     *
+     * @param capacity maximum amount of keys
+     */
+    public LongByteCache(long capacity) {
+        int sets = (int) Math.max(1, Math.min(capacity / WAYS, 1 << 27));
+        this.slots = new AtomicLongArray(sets * WAYS);
+        this.sets = sets;
+    }
+
+    /**
+     * Returns the value of the key.
+     *
+     * @param key key, below {@link #KEY_LIMIT}
+     * @return value or 0, if the key is not cached
+     */
+    public byte get(long key) {
+        int set = set(key);
+        for (int i = set; i < set + WAYS; i++) {
+            long slot = slots.get(i);
+            if (EMPTY != slot && key == (slot & ENTRY) >>> VALUE_BITS) {
+                if (0 == (slot & USED)) {
+                    slots.compareAndSet(i, slot, slot | USED);
+                }
+                return (byte) (slot & VALUE_MASK);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Caches the value of the key, evicting another key of its set if needed.
+     *
+     * @param key   key, below {@link #KEY_LIMIT}
+     * @param value value, from 1 to {@link #VALUE_LIMIT}
+     */
+    public void put(long key, byte value) {
+        long entry = key << VALUE_BITS | value;
+        int set = set(key);
+        for (int i = set; i < set + WAYS; i++) {
+            long slot = slots.get(i);
+            if (EMPTY == slot) {
+                if (slots.compareAndSet(i, EMPTY, entry)) {
+                    size.incrementAndGet();
+                    return;
+                }
+            } else if (key == (slot & ENTRY) >>> VALUE_BITS) {
+                return;
+            }
+        }
+        // clock over the set, starting from a slot picked by the key: clear used bits until an unused slot is found
+        int hand = (int) (HashKeySet.mix(key) & (WAYS - 1));
+        for (int n = 0; n < 2 * WAYS; n++) {
+            int i = set + (hand + n) % WAYS;
+            long slot = slots.get(i);
+            if (0 == (slot & USED)) {
+                if (slots.compareAndSet(i, slot, entry)) {
+                    if (EMPTY == slot) {
+                        size.incrementAndGet();
+                    } else {
+                        evictions.incrementAndGet();
+                    }
+                    return;
+                }
+            } else {
+                slots.compareAndSet(i, slot, slot & ENTRY);
+            }
+        }
+    }
+
+    /**
+     * Returns the amount of slots, the maximum amount of keys.
+     *
+     * @return the amount of slots
+     */
+    public long getCapacity() {
+        return slots.length();
+    }
+
+    public long getSize() {
+        return size.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    private int set(long key) {
+        // maps the high half of the hash onto any amount of sets with a multiplication instead of a division
+        return (int) (((HashKeySet.mix(key) >>> 32) * sets) >>> 32) * WAYS;
+    }
+}
@@ -0,0 +1,73 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive longs which collects sense pair keys during cache generation without boxing them.
+ * Duplicates are allowed while collecting. When the list is full it is sorted and deduplicated in place first,
+ * and grows only if that frees less than a half of it, so the list stays within twice the amount of distinct keys.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+class LongList {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] values;
+    private int size;
+
+    public LongList() {
+        this.values = new long[INITIAL_CAPACITY];
+    }
+
+    public void add(long value) {
+        if (size == values.length) {
+            compact();
+            if (size > values.length / 2) {
+                values = Arrays.copyOf(values, 2 * values.length);
+            }
+        }
+        values[size++] = value;
+    }
+
+    public void addAll(LongList other) {
+        if (size + other.size > values.length) {
+            compact();
+            if (size + other.size > values.length) {
+                values = Arrays.copyOf(values, Math.max(size + other.size, 2 * values.length));
+            }
+        }
+        System.arraycopy(other.values, 0, values, size, other.size);
+        size += other.size;
+    }
+
+    /**
+     * Returns the amount of values collected, including duplicates not removed yet.
+     *
+     * @return the amount of values
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the distinct values.
+     *
+     * @return sorted distinct values
+     */
+    public long[] toSortedArray() {
+        compact();
+        return Arrays.copyOf(values, size);
+    }
+
+    private void compact() {
+        Arrays.sort(values, 0, size);
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (0 == distinct || values[distinct - 1] != values[i]) {
+                values[distinct++] = values[i];
+            }
+        }
+        size = distinct;
+    }
+}
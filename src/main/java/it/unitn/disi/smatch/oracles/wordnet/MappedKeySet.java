@@ -0,0 +1,46 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+import java.nio.LongBuffer;
+
+/**
+ * Key set backed by a sorted memory-mapped buffer. Only absolute reads are used,
+ * therefore the instance is safe for concurrent lookups.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+class MappedKeySet implements IKeySet {
+
+    private final LongBuffer keys;
+    private final int size;
+
+    /**
+     * Constructs an instance over sorted keys.
+     *
+     * @param keys sorted keys
+     */
+    public MappedKeySet(LongBuffer keys) {
+        this.keys = keys;
+        this.size = keys.limit();
+    }
+
+    public boolean contains(long key) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midVal = keys.get(mid);
+            if (midVal < key) {
+                low = mid + 1;
+            } else if (midVal > key) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,386 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+import it.unitn.disi.common.DISIException;
+import it.unitn.disi.common.utils.MiscUtils;
+import it.unitn.disi.smatch.SMatchException;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+
+/**
+ * Compact token trie of multiwords. Tokens are numbered in a vocabulary sorted by their UTF-8 bytes and the trie
+ * is stored in breadth-first order in flat arrays: the edges of node n are edgeTokens[childStart[n]..childStart[n + 1]),
+ * sorted by token, and edge e leads to node e + 1. A lookup walks the token sequence once, binary searching
+ * the token and then the edge of each step. Immutable after construction and safe to share between threads.
+ * <p/>
+ * The index is kept in a single little-endian buffer, which is also the layout of the multiwords file:
+ * <pre>
+ * int   magic      (SMWM)
+ * short version
+ * short reserved
+ * int   tokens     amount of tokens in the vocabulary
+ * int   nodes      amount of trie nodes, the root included
+ * int   size       amount of multiwords
+ * int   bytes      length of the string table
+ * long  terminals[(nodes + 63) / 64]  bit set of nodes which end a multiword
+ * int   tokenStart[tokens + 1]        offsets of the tokens in the string table
+ * int   childStart[nodes + 1]
+ * int   edgeTokens[nodes - 1]
+ * byte  strings[bytes]                UTF-8 bytes of the tokens
+ * </pre>
+ * Files are memory-mapped, so reading one only maps it and the tokens are decoded only when
+ * {@link #getMultiwords(String)} returns them. Files written with Java serialization by earlier versions,
+ * a map from the first token to the remaining tokens, are still readable.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class MultiwordIndex {
+
+    public static final int MAGIC = 0x4D574D53; // "SMWM" in little-endian
+    public static final short VERSION = 1;
+
+    public static final int HEADER_SIZE = 24;
+
+    private final ByteBuffer data;
+    private final int size;
+    private final LongBuffer terminals;
+    private final StringTable tokens;
+    private final IntBuffer childStart;
+    private final IntBuffer edgeTokens;
+
+    /**
+     * Builds the index from the multiwords stored by their first token, the layout of the multiwords map.
+     *
+     * @param ends the remaining tokens of all multiwords by their first token
+     */
+    public MultiwordIndex(Map<String, List<List<String>>> ends) {
+        this(toMultiwords(ends));
+    }
+
+    /**
+     * Builds the index. Duplicate multiwords are stored once.
+     *
+     * @param multiwords multiwords, as token lists
+     */
+    public MultiwordIndex(Collection<List<String>> multiwords) {
+        this(build(multiwords));
+    }
+
+    /**
+     * Constructs the index over its binary layout.
+     *
+     * @param data index layout
+     * @throws IllegalArgumentException if the layout is invalid
+     */
+    private MultiwordIndex(ByteBuffer data) {
+        this.data = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (HEADER_SIZE > this.data.capacity() || MAGIC != this.data.getInt(0)) {
+            throw new IllegalArgumentException("Unknown multiwords file format");
+        }
+        short version = this.data.getShort(4);
+        if (VERSION != version) {
+            throw new IllegalArgumentException("Unsupported multiwords file version " + version);
+        }
+        int tokenCount = this.data.getInt(8);
+        int nodes = this.data.getInt(12);
+        size = this.data.getInt(16);
+        int bytes = this.data.getInt(20);
+        long length = HEADER_SIZE + (nodes + 63L) / 64 * (Long.SIZE / Byte.SIZE)
+                + (tokenCount + 1L + nodes + 1L + nodes - 1L) * (Integer.SIZE / Byte.SIZE) + bytes;
+        if (0 > tokenCount || 1 > nodes || 0 > size || 0 > bytes || this.data.capacity() != length) {
+            throw new IllegalArgumentException("Invalid multiwords file layout");
+        }
+        int position = HEADER_SIZE;
+        terminals = section(position, (nodes + 63) / 64 * (Long.SIZE / Byte.SIZE)).asLongBuffer();
+        position += terminals.capacity() * (Long.SIZE / Byte.SIZE);
+        IntBuffer tokenStart = section(position, (tokenCount + 1) * (Integer.SIZE / Byte.SIZE)).asIntBuffer();
+        position += tokenStart.capacity() * (Integer.SIZE / Byte.SIZE);
+        childStart = section(position, (nodes + 1) * (Integer.SIZE / Byte.SIZE)).asIntBuffer();
+        position += childStart.capacity() * (Integer.SIZE / Byte.SIZE);
+        edgeTokens = section(position, (nodes - 1) * (Integer.SIZE / Byte.SIZE)).asIntBuffer();
+        position += edgeTokens.capacity() * (Integer.SIZE / Byte.SIZE);
+        tokens = new StringTable(tokenStart, section(position, bytes));
+    }
+
+    private ByteBuffer section(int position, int length) {
+        ByteBuffer result = data.duplicate();
+        result.limit(position + length).position(position);
+        return result.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static ByteBuffer build(Collection<List<String>> multiwords) {
+        List<String> all = new ArrayList<>();
+        for (List<String> multiword : multiwords) {
+            all.addAll(multiword);
+        }
+        String[] distinct = StringTable.sort(all);
+        byte[][] vocabulary = new byte[distinct.length][];
+        Map<String, Integer> ids = new HashMap<>();
+        for (int i = 0; i < distinct.length; i++) {
+            vocabulary[i] = distinct[i].getBytes(StringTable.UTF8);
+            ids.put(distinct[i], i);
+        }
+
+        int[][] words = new int[multiwords.size()][];
+        int count = 0;
+        int depth = 0;
+        for (List<String> multiword : multiwords) {
+            if (!multiword.isEmpty()) {
+                int[] word = new int[multiword.size()];
+                for (int i = 0; i < word.length; i++) {
+                    word[i] = ids.get(multiword.get(i));
+                }
+                words[count++] = word;
+                depth = Math.max(depth, word.length);
+            }
+        }
+        words = Arrays.copyOf(words, count);
+        Arrays.sort(words, new Comparator<int[]>() {
+            public int compare(int[] a, int[] b) {
+                for (int i = 0; i < a.length && i < b.length; i++) {
+                    if (a[i] != b[i]) {
+                        return a[i] < b[i] ? -1 : 1;
+                    }
+                }
+                return a.length - b.length;
+            }
+        });
+
+        // level by level in sorted order: the distinct prefixes of each length become nodes in breadth-first order,
+        // grouped by their parent and sorted by their last token
+        int[] parents = new int[1];
+        int[] labels = new int[1];
+        BitSet ends = new BitSet();
+        int nodes = 1;
+        int[] current = new int[words.length];
+        for (int level = 0; level < depth; level++) {
+            int previousParent = -1;
+            int previousToken = -1;
+            for (int w = 0; w < words.length; w++) {
+                int[] word = words[w];
+                if (level < word.length) {
+                    int parent = current[w];
+                    if (parent != previousParent || word[level] != previousToken) {
+                        if (nodes == parents.length) {
+                            parents = Arrays.copyOf(parents, 2 * nodes);
+                            labels = Arrays.copyOf(labels, 2 * nodes);
+                        }
+                        parents[nodes] = parent;
+                        labels[nodes] = word[level];
+                        nodes++;
+                        previousParent = parent;
+                        previousToken = word[level];
+                    }
+                    current[w] = nodes - 1;
+                    if (level + 1 == word.length) {
+                        ends.set(nodes - 1);
+                    }
+                }
+            }
+        }
+
+        int[] children = new int[nodes + 1];
+        for (int node = 1; node < nodes; node++) {
+            children[parents[node] + 1]++;
+        }
+        for (int node = 0; node < nodes; node++) {
+            children[node + 1] += children[node];
+        }
+        int bytes = 0;
+        for (byte[] token : vocabulary) {
+            bytes += token.length;
+        }
+        long[] bits = Arrays.copyOf(ends.toLongArray(), (nodes + 63) / 64);
+
+        ByteBuffer result = ByteBuffer.allocate(HEADER_SIZE + bits.length * (Long.SIZE / Byte.SIZE)
+                + (vocabulary.length + 1 + nodes + 1 + nodes - 1) * (Integer.SIZE / Byte.SIZE) + bytes)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        result.putInt(MAGIC);
+        result.putShort(VERSION);
+        result.putShort((short) 0);
+        result.putInt(vocabulary.length);
+        result.putInt(nodes);
+        result.putInt(ends.cardinality());
+        result.putInt(bytes);
+        for (long word : bits) {
+            result.putLong(word);
+        }
+        int offset = 0;
+        for (byte[] token : vocabulary) {
+            result.putInt(offset);
+            offset += token.length;
+        }
+        result.putInt(offset);
+        for (int child : children) {
+            result.putInt(child);
+        }
+        for (int node = 1; node < nodes; node++) {
+            result.putInt(labels[node]);
+        }
+        for (byte[] token : vocabulary) {
+            result.put(token);
+        }
+        result.flip();
+        return result;
+    }
+
+    private static List<List<String>> toMultiwords(Map<String, List<List<String>>> ends) {
+        List<List<String>> result = new ArrayList<>();
+        for (Map.Entry<String, List<List<String>>> entry : ends.entrySet()) {
+            for (List<String> end : entry.getValue()) {
+                List<String> multiword = new ArrayList<>(end.size() + 1);
+                multiword.add(entry.getKey());
+                multiword.addAll(end);
+                result.add(multiword);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes the index into a multiwords file.
+     *
+     * @param fileName file name
+     * @throws SMatchException SMatchException
+     */
+    public void write(String fileName) throws SMatchException {
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "rw")) {
+            file.setLength(0);
+            ByteBuffer buffer = data.duplicate();
+            buffer.clear();
+            RelationFiles.writeFully(file.getChannel(), buffer);
+        } catch (IOException e) {
+            throw new SMatchException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads a multiwords file. Index files are memory-mapped, serialized maps are read and converted.
+     *
+     * @param fileName file name
+     * @return multiword index
+     * @throws SMatchException SMatchException
+     */
+    @SuppressWarnings("unchecked")
+    public static MultiwordIndex read(String fileName) throws SMatchException {
+        ByteBuffer data;
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "r")) {
+            FileChannel channel = file.getChannel();
+            data = RelationFiles.map(channel, 0, channel.size());
+        } catch (IOException e) {
+            throw new SMatchException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+        }
+        if (Short.SIZE / Byte.SIZE <= data.capacity()
+                && RelationFiles.STREAM_MAGIC == data.duplicate().order(ByteOrder.BIG_ENDIAN).getShort(0)) {
+            try {
+                return new MultiwordIndex((Map<String, List<List<String>>>) MiscUtils.readObject(fileName));
+            } catch (DISIException e) {
+                throw new SMatchException(e.getMessage(), e);
+            }
+        }
+        try {
+            return new MultiwordIndex(data);
+        } catch (IllegalArgumentException e) {
+            throw new SMatchException(e.getMessage() + ": " + fileName, e);
+        }
+    }
+
+    /**
+     * Returns the amount of multiwords.
+     *
+     * @return the amount of multiwords
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the length of the longest multiword which starts at the given position of the tokens.
+     *
+     * @param tokens token sequence
+     * @param from   start position
+     * @return the amount of tokens in the longest multiword or 0 if no multiword starts there
+     */
+    public int longestMatch(List<String> tokens, int from) {
+        int result = 0;
+        int node = 0;
+        for (int i = from; i < tokens.size(); i++) {
+            node = child(node, tokens.get(i));
+            if (0 > node) {
+                break;
+            }
+            if (isTerminal(node)) {
+                result = i - from + 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the remaining tokens of all multiwords starting with the token, in the token order.
+     *
+     * @param beginning the first token
+     * @return the remaining tokens of each multiword or null if there are none
+     */
+    public List<List<String>> getMultiwords(String beginning) {
+        int node = child(0, beginning);
+        if (0 > node) {
+            return null;
+        }
+        List<List<String>> result = new ArrayList<>();
+        collect(node, new ArrayList<String>(), result);
+        return result.isEmpty() ? null : Collections.unmodifiableList(result);
+    }
+
+    private void collect(int node, List<String> path, List<List<String>> result) {
+        if (isTerminal(node) && !path.isEmpty()) {
+            result.add(Collections.unmodifiableList(new ArrayList<>(path)));
+        }
+        for (int e = childStart.get(node); e < childStart.get(node + 1); e++) {
+            path.add(tokens.get(edgeTokens.get(e)));
+            collect(e + 1, path, result);
+            path.remove(path.size() - 1);
+        }
+    }
+
+    private boolean isTerminal(int node) {
+        return 0 != (terminals.get(node >>> 6) & (1L << node));
+    }
+
+    /**
+     * Returns the child of the node along the token.
+     *
+     * @param node  node
+     * @param token token
+     * @return the child or -1 if there is none
+     */
+    private int child(int node, String token) {
+        if (null == token) {
+            return -1;
+        }
+        int id = tokens.find(token);
+        if (0 > id) {
+            return -1;
+        }
+        int low = childStart.get(node);
+        int high = childStart.get(node + 1) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midVal = edgeTokens.get(mid);
+            if (midVal < id) {
+                low = mid + 1;
+            } else if (midVal > id) {
+                high = mid - 1;
+            } else {
+                return mid + 1;
+            }
+        }
+        return -1;
+    }
+}
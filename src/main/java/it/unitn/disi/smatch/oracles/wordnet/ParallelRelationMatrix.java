@@ -0,0 +1,156 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+import it.unitn.disi.smatch.data.ling.ISense;
+import it.unitn.disi.smatch.oracles.ISenseMatcher;
+import it.unitn.disi.smatch.oracles.SenseMatcherException;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes the relation matrix between source and target concepts on several threads. The source &times; target
+ * grid is split in halves along the longer side until the blocks have at most chunk size cells, and the blocks
+ * are computed in a fork-join pool. The result is the same as calling
+ * {@link ISenseMatcher#getRelation(List, List)} for each cell on a single thread.
+ * <p/>
+ * The sense matcher must be safe for concurrent use, as {@link WordNet} and the in-memory matchers are.
+ * When the matcher supports {@link IBatchSenseMatcher}, the grid is split along the rows only and each block
+ * of whole rows is filled in place with {@link IBatchSenseMatcher#getRelations(List, List, char[][], int, int)}.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class ParallelRelationMatrix {
+
+    /**
+     * Default maximum amount of cells in a block.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    private final ISenseMatcher matcher;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    public ParallelRelationMatrix(ISenseMatcher matcher) {
+        this(matcher, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructs an instance.
+     *
+     * @param matcher     sense matcher, safe for concurrent use
+     * @param parallelism amount of threads
+     * @param chunkSize   maximum amount of cells in a block computed by a single task
+     * @throws IllegalArgumentException if the parallelism or the chunk size are not positive
+     */
+    public ParallelRelationMatrix(ISenseMatcher matcher, int parallelism, int chunkSize) {
+        if (0 >= chunkSize) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.matcher = matcher;
+        this.pool = new ForkJoinPool(parallelism);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Returns the relations between all source and target concepts.
+     *
+     * @param sourceSenses senses of each source concept
+     * @param targetSenses senses of each target concept
+     * @return relation matrix, relations[i][j] is the relation between source i and target j
+     * @throws SenseMatcherException SenseMatcherException
+     */
+    public char[][] getRelations(List<List<ISense>> sourceSenses, List<List<ISense>> targetSenses) throws SenseMatcherException {
+        char[][] result = new char[sourceSenses.size()][targetSenses.size()];
+        try {
+            pool.invoke(new Block(sourceSenses, targetSenses, result, 0, result.length, 0, targetSenses.size()));
+        } catch (BlockException e) {
+            throw e.getCause();
+        }
+        return result;
+    }
+
+    /**
+     * Stops the threads. The instance can not be used afterwards.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private class Block extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<List<ISense>> sourceSenses;
+        private final List<List<ISense>> targetSenses;
+        private final char[][] relations;
+        private final int fromRow;
+        private final int toRow;
+        private final int fromColumn;
+        private final int toColumn;
+
+        private Block(List<List<ISense>> sourceSenses, List<List<ISense>> targetSenses, char[][] relations,
+                      int fromRow, int toRow, int fromColumn, int toColumn) {
+            this.sourceSenses = sourceSenses;
+            this.targetSenses = targetSenses;
+            this.relations = relations;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.fromColumn = fromColumn;
+            this.toColumn = toColumn;
+        }
+
+        @Override
+        protected void compute() {
+            int rows = toRow - fromRow;
+            int columns = toColumn - fromColumn;
+            boolean batch = matcher instanceof IBatchSenseMatcher;
+            if ((long) rows * columns <= chunkSize || (1 >= rows && (batch || 1 >= columns))) {
+                try {
+                    computeDirectly();
+                } catch (SenseMatcherException e) {
+                    throw new BlockException(e);
+                }
+            } else if (batch || rows >= columns) {
+                int middle = fromRow + rows / 2;
+                invokeAll(new Block(sourceSenses, targetSenses, relations, fromRow, middle, fromColumn, toColumn),
+                        new Block(sourceSenses, targetSenses, relations, middle, toRow, fromColumn, toColumn));
+            } else {
+                int middle = fromColumn + columns / 2;
+                invokeAll(new Block(sourceSenses, targetSenses, relations, fromRow, toRow, fromColumn, middle),
+                        new Block(sourceSenses, targetSenses, relations, fromRow, toRow, middle, toColumn));
+            }
+        }
+
+        private void computeDirectly() throws SenseMatcherException {
+            if (matcher instanceof IBatchSenseMatcher) {
+                // batch blocks span all columns
+                ((IBatchSenseMatcher) matcher).getRelations(sourceSenses, targetSenses, relations, fromRow, toRow);
+            } else {
+                for (int i = fromRow; i < toRow; i++) {
+                    List<ISense> source = sourceSenses.get(i);
+                    for (int j = fromColumn; j < toColumn; j++) {
+                        relations[i][j] = matcher.getRelation(source, targetSenses.get(j));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Carries a checked exception of a block out of the pool.
+     */
+    private static class BlockException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private BlockException(SenseMatcherException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized SenseMatcherException getCause() {
+            return (SenseMatcherException) super.getCause();
+        }
+    }
+}
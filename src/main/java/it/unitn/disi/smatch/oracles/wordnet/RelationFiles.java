@@ -0,0 +1,241 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+import it.unitn.disi.common.DISIException;
+import it.unitn.disi.common.utils.MiscUtils;
+import it.unitn.disi.smatch.SMatchException;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads and writes WordNet relation cache files.
+ * <p/>
+ * A relation file is a flat little-endian binary file with a 16 bytes header followed by the keys:
+ * <pre>
+ * int   magic   (SMWB)
+ * short version
+ * short layout
+ * long  count
+ * ...   keys
+ * </pre>
+ * The layout defines how the keys are stored: sorted ({@link #LAYOUT_SORTED}),
+ * in nodes of an implicit static B-tree padded to a multiple of the node size ({@link #LAYOUT_BLOCKED},
+ * see {@link BlockedKeySet}) or compressed in blocks with a skip index ({@link #LAYOUT_COMPRESSED},
+ * see {@link CompressedKeySet}).
+ * The keys are mapped into memory instead of being read onto the heap, therefore loading is nearly instant
+ * and several processes on the same host share the pages through the OS page cache.
+ * <p/>
+ * Files written with Java serialization by earlier versions are still readable.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+final class RelationFiles {
+
+    public static final int MAGIC = 0x42574D53; // "SMWB" in little-endian
+    public static final short VERSION = 1;
+    public static final short LAYOUT_SORTED = 0;
+    public static final short LAYOUT_BLOCKED = 1;
+    public static final short LAYOUT_COMPRESSED = 2;
+
+    public static final int HEADER_SIZE = 16;
+
+    // Java serialization stream magic
+    static final short STREAM_MAGIC = (short) 0xaced;
+
+    static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private RelationFiles() {
+    }
+
+    /**
+     * Writes sorted keys into a relation file.
+     *
+     * @param keys     sorted keys
+     * @param fileName file name
+     * @throws SMatchException SMatchException
+     */
+    public static void write(long[] keys, String fileName) throws SMatchException {
+        write(keys, fileName, LAYOUT_SORTED);
+    }
+
+    /**
+     * Writes sorted keys into a relation file using the layout.
+     *
+     * @param keys     sorted keys
+     * @param fileName file name
+     * @param layout   layout of the keys in the file
+     * @throws SMatchException SMatchException
+     */
+    public static void write(long[] keys, String fileName, short layout) throws SMatchException {
+        ByteBuffer payload;
+        if (LAYOUT_SORTED == layout) {
+            payload = toBytes(keys);
+        } else if (LAYOUT_BLOCKED == layout) {
+            payload = toBytes(BlockedKeySet.fromSorted(keys));
+        } else if (LAYOUT_COMPRESSED == layout) {
+            payload = CompressedKeySet.compress(keys);
+        } else {
+            throw new SMatchException("Unsupported relation file layout " + layout + ": " + fileName);
+        }
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "rw")) {
+            file.setLength(0);
+            FileChannel channel = file.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC);
+            header.putShort(VERSION);
+            header.putShort(layout);
+            header.putLong(keys.length);
+            flush(channel, header);
+            writeFully(channel, payload);
+        } catch (IOException e) {
+            throw new SMatchException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads a relation file. Relation files are memory-mapped, serialized arrays are read onto the heap.
+     *
+     * @param fileName file name
+     * @return key set
+     * @throws SMatchException SMatchException
+     */
+    public static IKeySet read(String fileName) throws SMatchException {
+        Contents contents = readContents(fileName);
+        if (null != contents.serialized) {
+            return new ArrayKeySet(contents.serialized);
+        } else if (LAYOUT_BLOCKED == contents.layout) {
+            return new BlockedKeySet(contents.payload.asLongBuffer(), contents.count);
+        } else if (LAYOUT_COMPRESSED == contents.layout) {
+            return compressed(contents, fileName);
+        } else {
+            return new MappedKeySet(contents.payload.asLongBuffer());
+        }
+    }
+
+    /**
+     * Reads the sorted keys of a relation file onto the heap.
+     *
+     * @param fileName file name
+     * @return sorted keys
+     * @throws SMatchException SMatchException
+     */
+    public static long[] readKeys(String fileName) throws SMatchException {
+        Contents contents = readContents(fileName);
+        if (null != contents.serialized) {
+            return contents.serialized;
+        } else if (LAYOUT_BLOCKED == contents.layout) {
+            return BlockedKeySet.toSorted(contents.payload.asLongBuffer(), contents.count);
+        } else if (LAYOUT_COMPRESSED == contents.layout) {
+            return compressed(contents, fileName).toSorted();
+        } else {
+            long[] result = new long[contents.count];
+            contents.payload.asLongBuffer().get(result);
+            return result;
+        }
+    }
+
+    private static Contents readContents(String fileName) throws SMatchException {
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "r")) {
+            FileChannel channel = file.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && -1 < channel.read(header)) {
+                // read the header fully
+            }
+            header.flip();
+            if (Short.SIZE / Byte.SIZE <= header.remaining()
+                    && STREAM_MAGIC == header.duplicate().order(ByteOrder.BIG_ENDIAN).getShort()) {
+                long[] keys = readSerialized(fileName);
+                return new Contents(LAYOUT_SORTED, keys.length, null, keys);
+            }
+            if (HEADER_SIZE > header.remaining() || MAGIC != header.getInt()) {
+                throw new SMatchException("Unknown relation file format: " + fileName);
+            }
+            short version = header.getShort();
+            if (VERSION != version) {
+                throw new SMatchException("Unsupported relation file version " + version + ": " + fileName);
+            }
+            short layout = header.getShort();
+            long count = header.getLong();
+            if (0 > count || Integer.MAX_VALUE / (Long.SIZE / Byte.SIZE) - BlockedKeySet.BLOCK < count) {
+                throw new SMatchException("Invalid key count " + count + ": " + fileName);
+            }
+            long size;
+            if (LAYOUT_SORTED == layout) {
+                size = count * (Long.SIZE / Byte.SIZE);
+            } else if (LAYOUT_BLOCKED == layout) {
+                size = (long) BlockedKeySet.blocks((int) count) * BlockedKeySet.BLOCK * (Long.SIZE / Byte.SIZE);
+            } else if (LAYOUT_COMPRESSED == layout) {
+                // the skip index defines the length of the compressed data
+                size = Math.min(Integer.MAX_VALUE, channel.size() - HEADER_SIZE);
+            } else {
+                throw new SMatchException("Unsupported relation file layout " + layout + ": " + fileName);
+            }
+            return new Contents(layout, (int) count, map(channel, HEADER_SIZE, size), null);
+        } catch (IOException e) {
+            throw new SMatchException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static CompressedKeySet compressed(Contents contents, String fileName) throws SMatchException {
+        try {
+            return new CompressedKeySet(contents.payload, contents.count);
+        } catch (IllegalArgumentException e) {
+            throw new SMatchException(e.getMessage() + ": " + fileName, e);
+        }
+    }
+
+    private static ByteBuffer toBytes(long[] keys) {
+        ByteBuffer result = ByteBuffer.allocate(keys.length * (Long.SIZE / Byte.SIZE)).order(ByteOrder.LITTLE_ENDIAN);
+        result.asLongBuffer().put(keys);
+        return result;
+    }
+
+    static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        if (channel.size() < position + size) {
+            throw new IOException("Truncated relation file: expected " + (position + size) + " bytes, found " + channel.size());
+        }
+        MappedByteBuffer result = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        result.order(ByteOrder.LITTLE_ENDIAN);
+        return result;
+    }
+
+    static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        writeFully(channel, buffer);
+        buffer.clear();
+    }
+
+    static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static long[] readSerialized(String fileName) throws SMatchException {
+        try {
+            return (long[]) MiscUtils.readObject(fileName);
+        } catch (DISIException e) {
+            throw new SMatchException(e.getMessage(), e);
+        }
+    }
+
+    private static class Contents {
+        private final short layout;
+        private final int count;
+        // keys, as stored in the file
+        private final ByteBuffer payload;
+        // keys of files written with Java serialization
+        private final long[] serialized;
+
+        private Contents(short layout, int count, ByteBuffer payload, long[] serialized) {
+            this.layout = layout;
+            this.count = count;
+            this.payload = payload;
+            this.serialized = serialized;
+        }
+    }
+}
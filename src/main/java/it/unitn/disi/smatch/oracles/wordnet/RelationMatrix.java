@@ -0,0 +1,75 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+import it.unitn.disi.smatch.data.ling.ISense;
+import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.oracles.ISenseMatcher;
+
+import java.util.List;
+
+/**
+ * Helpers to compute relation matrices with the precedence of {@link ISenseMatcher#getRelation(List, List)}.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+final class RelationMatrix {
+
+    /**
+     * Relations in order of precedence, indexed by rank.
+     */
+    static final char[] RANKED = {IMappingElement.EQUIVALENCE, IMappingElement.LESS_GENERAL,
+            IMappingElement.MORE_GENERAL, IMappingElement.DISJOINT, IMappingElement.IDK};
+
+    static final int EQUIVALENCE = 0;
+    static final int LESS_GENERAL = 1;
+    static final int MORE_GENERAL = 2;
+    static final int DISJOINT = 3;
+    static final int IDK = 4;
+
+    private RelationMatrix() {
+    }
+
+    /**
+     * Returns the rank of a relation, lower ranks take precedence.
+     *
+     * @param relation relation
+     * @return rank of the relation
+     */
+    static int rank(char relation) {
+        switch (relation) {
+            case IMappingElement.EQUIVALENCE:
+                return EQUIVALENCE;
+            case IMappingElement.LESS_GENERAL:
+                return LESS_GENERAL;
+            case IMappingElement.MORE_GENERAL:
+                return MORE_GENERAL;
+            case IMappingElement.DISJOINT:
+                return DISJOINT;
+            default:
+                return IDK;
+        }
+    }
+
+    /**
+     * Checks the matrix dimensions and the row range.
+     *
+     * @param sourceSenses senses of each source concept
+     * @param targetSenses senses of each target concept
+     * @param relations    relation matrix
+     * @param fromRow      first row, inclusive
+     * @param toRow        last row, exclusive
+     */
+    static void checkRange(List<List<ISense>> sourceSenses, List<List<ISense>> targetSenses,
+                           char[][] relations, int fromRow, int toRow) {
+        if (relations.length != sourceSenses.size()) {
+            throw new IllegalArgumentException("Matrix has " + relations.length + " rows for " + sourceSenses.size() + " sources");
+        }
+        if (0 > fromRow || fromRow > toRow || toRow > relations.length) {
+            throw new IndexOutOfBoundsException("Rows " + fromRow + ".." + toRow + " of " + relations.length);
+        }
+        for (int i = fromRow; i < toRow; i++) {
+            if (relations[i].length != targetSenses.size()) {
+                throw new IllegalArgumentException("Matrix row " + i + " has " + relations[i].length + " columns for " + targetSenses.size() + " targets");
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+import com.googlecode.concurrentlinkedhashmap.EvictionListener;
+import it.unitn.disi.smatch.data.ling.ISense;
+import it.unitn.disi.smatch.data.mappings.IMappingElement;
+
+/**
+ * Bounded cache of relations between sense pairs. Safe for concurrent use.
+ * <p/>
+ * Pairs of WordNet senses are cached under a packed long key, part of speech and offset of each sense,
+ * in a primitive {@link LongByteCache}, so a lookup allocates nothing. Other senses fall back to a string key
+ * in a map which evicts the least recently used pairs. The map gets 1/{@value #OTHERS_SHARE} of the capacity
+ * and the primitive cache the rest, so the cache holds at most the capacity pairs.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+class SenseRelationCache {
+
+    /**
+     * Returned by {@link #get(ISense, ISense)} for pairs not in the cache.
+     */
+    public static final char NONE = 0;
+
+    // relations by their code in the primitive cache, code 0 means absent
+    private static final char[] RELATIONS = {NONE, IMappingElement.EQUIVALENCE, IMappingElement.LESS_GENERAL,
+            IMappingElement.MORE_GENERAL, IMappingElement.DISJOINT, IMappingElement.IDK};
+
+    /**
+     * Part of the capacity given to pairs of other senses than WordNet ones, as a divisor.
+     */
+    public static final int OTHERS_SHARE = 8;
+
+    // bits of a sense in a pair key: 2 bits of part of speech and 28 bits of offset
+    private static final int OFFSET_BITS = 28;
+    private static final int SENSE_BITS = OFFSET_BITS + 2;
+
+    private final String name;
+    private final long capacity;
+    private final LongByteCache senses;
+    private final ConcurrentLinkedHashMap<String, Character> others;
+
+    private final CacheCounters counters = new CacheCounters();
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param name     cache name, for statistics
+     * @param capacity maximum amount of sense pairs
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public SenseRelationCache(String name, long capacity) {
+        if (0 >= capacity) {
+            throw new IllegalArgumentException("Cache capacity must be positive: " + capacity);
+        }
+        this.name = name;
+        this.capacity = capacity;
+        long othersCapacity = Math.max(1, capacity / OTHERS_SHARE);
+        this.senses = new LongByteCache(Math.max(1, capacity - othersCapacity));
+        this.others = new ConcurrentLinkedHashMap.Builder<String, Character>()
+                .maximumWeightedCapacity(othersCapacity)
+                .listener(new EvictionListener<String, Character>() {
+                    public void onEviction(String key, Character value) {
+                        counters.evict();
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Returns the cached relation of the pair.
+     *
+     * @param source source sense
+     * @param target target sense
+     * @return relation or {@link #NONE}, if the pair is not cached
+     */
+    public char get(ISense source, ISense target) {
+        char result;
+        long key = key(source, target);
+        if (0 <= key) {
+            result = RELATIONS[senses.get(key)];
+        } else {
+            Character relation = others.get(source.toString() + "\t" + target.toString());
+            result = null == relation ? NONE : relation;
+        }
+        if (NONE == result) {
+            counters.miss();
+        } else {
+            counters.hit();
+        }
+        return result;
+    }
+
+    public void put(ISense source, ISense target, char relation) {
+        long key = key(source, target);
+        if (0 <= key) {
+            senses.put(key, code(relation));
+        } else {
+            others.put(source.toString() + "\t" + target.toString(), relation);
+        }
+    }
+
+    public CacheStatistics getStatistics() {
+        return new CacheStatistics(name, capacity, senses.getSize() + others.size(), counters.getHits(),
+                counters.getMisses(), senses.getEvictions() + counters.getEvictions());
+    }
+
+    /**
+     * Packs a pair of WordNet senses into a key.
+     *
+     * @param source source sense
+     * @param target target sense
+     * @return the key or -1 if the senses can not be packed
+     */
+    private static long key(ISense source, ISense target) {
+        if (source instanceof WordNetSense && target instanceof WordNetSense) {
+            long s = sense((WordNetSense) source);
+            long t = sense((WordNetSense) target);
+            if (0 <= s && 0 <= t) {
+                return s << SENSE_BITS | t;
+            }
+        }
+        return -1;
+    }
+
+    private static long sense(WordNetSense sense) {
+        long offset = sense.getOffset();
+        if (0 > offset || (1L << OFFSET_BITS) <= offset) {
+            return -1;
+        }
+        return (long) sense.getPOS().ordinal() << OFFSET_BITS | offset;
+    }
+
+    private static byte code(char relation) {
+        for (byte i = 1; i < RELATIONS.length; i++) {
+            if (relation == RELATIONS[i]) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown relation: " + relation);
+    }
+}
@@ -0,0 +1,140 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.Charset;
+import java.util.*;
+
+/**
+ * Sorted table of distinct strings over two sections of a binary file: the UTF-8 bytes of the strings, sorted
+ * as unsigned bytes, and the offsets of each string in the bytes. String i is bytes[starts[i]..starts[i + 1]).
+ * Strings are found by a binary search over the bytes, without decoding them.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+final class StringTable {
+
+    static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final IntBuffer starts;
+    private final ByteBuffer bytes;
+    private final int size;
+
+    /**
+     * Constructs a table over its sections.
+     *
+     * @param starts offsets of the strings in the bytes, one more than the amount of strings
+     * @param bytes  UTF-8 bytes of the strings
+     */
+    public StringTable(IntBuffer starts, ByteBuffer bytes) {
+        this.starts = starts;
+        this.bytes = bytes;
+        this.size = starts.capacity() - 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the position of the string in the table.
+     *
+     * @param string string
+     * @return the position or -1 if the string is not in the table
+     */
+    public int find(String string) {
+        // strings are nearly always ASCII, which compares without encoding
+        byte[] encoded = null;
+        for (int i = 0; i < string.length(); i++) {
+            if (0x80 <= string.charAt(i)) {
+                encoded = string.getBytes(UTF8);
+                break;
+            }
+        }
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int c = null == encoded ? compareAscii(mid, string) : compareEncoded(mid, encoded);
+            if (c < 0) {
+                low = mid + 1;
+            } else if (c > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decodes the string at the position.
+     *
+     * @param id position
+     * @return string
+     */
+    public String get(int id) {
+        int start = starts.get(id);
+        byte[] result = new byte[starts.get(id + 1) - start];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bytes.get(start + i);
+        }
+        return new String(result, UTF8);
+    }
+
+    private int compareAscii(int id, String string) {
+        int start = starts.get(id);
+        int length = starts.get(id + 1) - start;
+        for (int i = 0; i < length && i < string.length(); i++) {
+            int c = (bytes.get(start + i) & 0xff) - string.charAt(i);
+            if (0 != c) {
+                return c;
+            }
+        }
+        return length - string.length();
+    }
+
+    private int compareEncoded(int id, byte[] string) {
+        int start = starts.get(id);
+        int length = starts.get(id + 1) - start;
+        for (int i = 0; i < length && i < string.length; i++) {
+            int c = (bytes.get(start + i) & 0xff) - (string[i] & 0xff);
+            if (0 != c) {
+                return c;
+            }
+        }
+        return length - string.length;
+    }
+
+    /**
+     * Sorts the distinct strings in the table order.
+     *
+     * @param strings strings
+     * @return distinct strings, sorted by their UTF-8 bytes
+     */
+    public static String[] sort(Collection<String> strings) {
+        final Map<String, byte[]> encoded = new HashMap<>();
+        for (String string : strings) {
+            if (!encoded.containsKey(string)) {
+                encoded.put(string, string.getBytes(UTF8));
+            }
+        }
+        String[] result = encoded.keySet().toArray(new String[encoded.size()]);
+        Arrays.sort(result, new Comparator<String>() {
+            public int compare(String a, String b) {
+                return compareBytes(encoded.get(a), encoded.get(b));
+            }
+        });
+        return result;
+    }
+
+    private static int compareBytes(byte[] a, byte[] b) {
+        for (int i = 0; i < a.length && i < b.length; i++) {
+            int c = (a[i] & 0xff) - (b[i] & 0xff);
+            if (0 != c) {
+                return c;
+            }
+        }
+        return a.length - b.length;
+    }
+}
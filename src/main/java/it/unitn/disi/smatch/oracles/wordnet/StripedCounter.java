@@ -0,0 +1,45 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counter for hot paths shared by many threads. Each thread increments one of several stripes, picked by
+ * its id, and the stripes lie on different cache lines, so concurrent increments rarely touch the same line.
+ * The value is the sum of the stripes and is exact once the increments are over.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+final class StripedCounter {
+
+    // longs per cache line, the stripe spacing
+    private static final int SPACING = 8;
+
+    private static final int STRIPES;
+
+    static {
+        int stripes = 1;
+        while (stripes < 2 * Runtime.getRuntime().availableProcessors() && stripes < 64) {
+            stripes <<= 1;
+        }
+        STRIPES = stripes;
+    }
+
+    private final AtomicLongArray stripes = new AtomicLongArray(STRIPES * SPACING);
+
+    public void increment() {
+        stripes.incrementAndGet(stripe());
+    }
+
+    public long get() {
+        long result = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            result += stripes.get(i * SPACING);
+        }
+        return result;
+    }
+
+    private static int stripe() {
+        // thread ids are sequential, so the low bits spread the threads over the stripes
+        return ((int) Thread.currentThread().getId() & (STRIPES - 1)) * SPACING;
+    }
+}
@@ -1,12 +1,12 @@
 package it.unitn.disi.smatch.oracles.wordnet;
 
+import com.googlecode.concurrentlinkedhashmap.Weigher;
 import it.unitn.disi.common.DISIException;
 import it.unitn.disi.common.utils.MiscUtils;
 import it.unitn.disi.smatch.SMatchException;
 import it.unitn.disi.smatch.data.ling.ISense;
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
 import it.unitn.disi.smatch.oracles.ILinguisticOracle;
-import it.unitn.disi.smatch.oracles.ISenseMatcher;
 import it.unitn.disi.smatch.oracles.LinguisticOracleException;
 import it.unitn.disi.smatch.oracles.SenseMatcherException;
 import net.sf.extjwnl.JWNLException;
@@ -24,7 +24,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.*;
 import java.util.regex.Pattern;
 
 /**
@@ -33,18 +33,61 @@ import java.util.regex.Pattern;
  * @author Mikalai Yatskevich mikalai.yatskevich@comlab.ox.ac.uk
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
-public class WordNet implements ILinguisticOracle, ISenseMatcher {
+public class WordNet implements ILinguisticOracle, IBatchSenseMatcher {
 
     private static final Logger log = LoggerFactory.getLogger(WordNet.class);
 
     private static final Pattern offset = Pattern.compile("\\d+");
 
+    // deeper hierarchy views are computed on each call
+    private static final int MAX_CACHED_DEPTH = (1 << 27) - 1;
+
     private final Dictionary dic;
 
-    // contains all the multiwords in WordNet
-    private final Map<String, List<List<String>>> multiwords;
+    // multiwords file, null to create the multiwords from the dictionary
+    private final String multiwordsFileName;
+    // contains all the multiwords in WordNet, loaded on first use
+    private volatile MultiwordIndex multiwords;
+    private final Object multiwordsLock = new Object();
+
+    /**
+     * Default maximum amount of sense pairs in the relation cache.
+     */
+    public static final long DEFAULT_SENSES_CACHE_CAPACITY = 1 << 18;
+
+    private final SenseRelationCache sensesCache;
+
+    /**
+     * Default maximum amount of labels in the senses cache.
+     */
+    public static final long DEFAULT_LABELS_CACHE_CAPACITY = 1 << 16;
+
+    // senses of labels, shared immutable lists
+    private final BoundedCache<String, List<ISense>> labelsCache;
+
+    /**
+     * Default maximum amount of tokens in the base forms cache and in the unknown tokens cache.
+     */
+    public static final long DEFAULT_BASE_FORMS_CACHE_CAPACITY = 1 << 16;
+
+    // base forms of known tokens, shared immutable lists
+    private final BoundedCache<String, List<String>> baseFormsCache;
+    // tokens without base forms, kept apart so that noise does not evict known tokens
+    private final BoundedCache<String, Boolean> unknownTokensCache;
+
+    /**
+     * Default maximum amount of senses in the parents and children cache.
+     */
+    public static final long DEFAULT_HIERARCHY_CACHE_CAPACITY = 1 << 18;
+
+    // parents and children of synsets by sense, direction and depth, shared immutable lists weighted by their size
+    private final BoundedCache<Long, List<ISense>> hierarchyCache;
+
+    // precompiled relations, null to traverse WordNet for all relations
+    private final KeySetSenseMatcher relations;
 
-    private final Map<String, Character> sensesCache = new ConcurrentHashMap<>();
+    // one sense instance per synset, by part of speech and offset
+    private final ConcurrentMap<Long, WordNetSense> senses = new ConcurrentHashMap<>();
 
     public WordNet() throws SMatchException {
         this(null, null, true);
@@ -59,19 +102,111 @@ public class WordNet implements ILinguisticOracle, ISenseMatcher {
     }
 
     public WordNet(String jwnlPropertiesPath, String multiwordsFileName, boolean loadArrays) throws SMatchException {
-        dic = getDictionary(jwnlPropertiesPath);
+        this(jwnlPropertiesPath, multiwordsFileName, loadArrays, DEFAULT_SENSES_CACHE_CAPACITY);
+    }
 
-        if (null != multiwordsFileName) {
-            if (loadArrays) {
-                log.info("Loading multiwords: " + multiwordsFileName);
-                multiwords = readHash(multiwordsFileName);
-                log.info("loaded multiwords: " + multiwords.size());
-            } else {
-                multiwords = new HashMap<>();
+    public WordNet(String jwnlPropertiesPath, String multiwordsFileName, boolean loadArrays, long sensesCacheCapacity) throws SMatchException {
+        this(jwnlPropertiesPath, multiwordsFileName, loadArrays, sensesCacheCapacity, DEFAULT_LABELS_CACHE_CAPACITY);
+    }
+
+    public WordNet(String jwnlPropertiesPath, String multiwordsFileName, boolean loadArrays,
+                   long sensesCacheCapacity, long labelsCacheCapacity) throws SMatchException {
+        this(jwnlPropertiesPath, multiwordsFileName, loadArrays, sensesCacheCapacity, labelsCacheCapacity,
+                DEFAULT_BASE_FORMS_CACHE_CAPACITY);
+    }
+
+    /**
+     * Constructs an instance.
+     *
+     * @param jwnlPropertiesPath     extJWNL properties file path, null for the default resource instance
+     * @param multiwordsFileName     multiwords file name, null to create the multiwords from the dictionary
+     * @param loadArrays             whether to load the multiwords file, on first use
+     * @param sensesCacheCapacity    maximum amount of sense pairs with cached relations, 8 bytes per pair
+     *                               of WordNet senses, the least recently used pairs are evicted
+     * @param labelsCacheCapacity    maximum amount of labels with cached senses,
+     *                               the least recently used labels are evicted
+     * @param baseFormsCacheCapacity maximum amount of tokens with cached base forms, and of unknown tokens,
+     *                               the least recently used tokens are evicted
+     * @throws SMatchException SMatchException
+     */
+    public WordNet(String jwnlPropertiesPath, String multiwordsFileName, boolean loadArrays,
+                   long sensesCacheCapacity, long labelsCacheCapacity, long baseFormsCacheCapacity) throws SMatchException {
+        this(jwnlPropertiesPath, multiwordsFileName, loadArrays, sensesCacheCapacity, labelsCacheCapacity,
+                baseFormsCacheCapacity, null);
+    }
+
+    /**
+     * Constructs an instance which answers sense relations from precompiled relations where they are available,
+     * see {@link InMemoryWordNetBinaryArray}. Relations between WordNet senses are then looked up in the
+     * precompiled keys and WordNet is traversed only for relations the keys do not hold, the antonyms of verbs.
+     * The answers are those of the precompiled relations, which also hold nominalizations and antonyms of nouns.
+     *
+     * @param jwnlPropertiesPath     extJWNL properties file path, null for the default resource instance
+     * @param multiwordsFileName     multiwords file name, null to create the multiwords from the dictionary
+     * @param loadArrays             whether to load the multiwords file, on first use
+     * @param sensesCacheCapacity    maximum amount of sense pairs with cached relations, 8 bytes per pair
+     *                               of WordNet senses, the least recently used pairs are evicted
+     * @param labelsCacheCapacity    maximum amount of labels with cached senses,
+     *                               the least recently used labels are evicted
+     * @param baseFormsCacheCapacity maximum amount of tokens with cached base forms, and of unknown tokens,
+     *                               the least recently used tokens are evicted
+     * @param relations              precompiled relations, null to traverse WordNet for all relations
+     * @throws SMatchException SMatchException
+     */
+    public WordNet(String jwnlPropertiesPath, String multiwordsFileName, boolean loadArrays,
+                   long sensesCacheCapacity, long labelsCacheCapacity, long baseFormsCacheCapacity,
+                   KeySetSenseMatcher relations) throws SMatchException {
+        this(jwnlPropertiesPath, multiwordsFileName, loadArrays, sensesCacheCapacity, labelsCacheCapacity,
+                baseFormsCacheCapacity, relations, DEFAULT_HIERARCHY_CACHE_CAPACITY);
+    }
+
+    /**
+     * Constructs an instance.
+     *
+     * @param jwnlPropertiesPath     extJWNL properties file path, null for the default resource instance
+     * @param multiwordsFileName     multiwords file name, null to create the multiwords from the dictionary
+     * @param loadArrays             whether to load the multiwords file, on first use
+     * @param sensesCacheCapacity    maximum amount of sense pairs with cached relations, 8 bytes per pair
+     *                               of WordNet senses, the least recently used pairs are evicted
+     * @param labelsCacheCapacity    maximum amount of labels with cached senses,
+     *                               the least recently used labels are evicted
+     * @param baseFormsCacheCapacity maximum amount of tokens with cached base forms, and of unknown tokens,
+     *                               the least recently used tokens are evicted
+     * @param relations              precompiled relations, null to traverse WordNet for all relations
+     * @param hierarchyCacheCapacity maximum total amount of senses in the cached parents and children lists,
+     *                               the least recently used lists are evicted
+     * @throws SMatchException SMatchException
+     */
+    public WordNet(String jwnlPropertiesPath, String multiwordsFileName, boolean loadArrays,
+                   long sensesCacheCapacity, long labelsCacheCapacity, long baseFormsCacheCapacity,
+                   KeySetSenseMatcher relations, long hierarchyCacheCapacity) throws SMatchException {
+        if (0 >= sensesCacheCapacity) {
+            throw new SMatchException("Senses cache capacity must be positive: " + sensesCacheCapacity);
+        }
+        if (0 >= labelsCacheCapacity) {
+            throw new SMatchException("Labels cache capacity must be positive: " + labelsCacheCapacity);
+        }
+        sensesCache = new SenseRelationCache("senses", sensesCacheCapacity);
+        if (0 >= baseFormsCacheCapacity) {
+            throw new SMatchException("Base forms cache capacity must be positive: " + baseFormsCacheCapacity);
+        }
+        labelsCache = new BoundedCache<>("labels", labelsCacheCapacity);
+        baseFormsCache = new BoundedCache<>("base forms", baseFormsCacheCapacity);
+        unknownTokensCache = new BoundedCache<>("unknown tokens", baseFormsCacheCapacity);
+        if (0 >= hierarchyCacheCapacity) {
+            throw new SMatchException("Hierarchy cache capacity must be positive: " + hierarchyCacheCapacity);
+        }
+        hierarchyCache = new BoundedCache<>("hierarchy", hierarchyCacheCapacity, new Weigher<List<ISense>>() {
+            public int weightOf(List<ISense> value) {
+                return 1 + value.size();
             }
-        } else {
-            // create it
-            multiwords = createMultiwordHash(dic);
+        });
+        dic = getDictionary(jwnlPropertiesPath);
+        this.relations = relations;
+
+        this.multiwordsFileName = multiwordsFileName;
+        if (null != multiwordsFileName && !loadArrays) {
+            multiwords = new MultiwordIndex(Collections.<List<String>>emptyList());
         }
     }
 
@@ -97,55 +232,316 @@ public class WordNet implements ILinguisticOracle, ISenseMatcher {
         }
     }
 
+    /**
+     * Returns the senses of the label. The lists are cached and shared, and therefore immutable.
+     *
+     * @param label label
+     * @return unmodifiable list of senses
+     * @throws LinguisticOracleException LinguisticOracleException
+     */
     public List<ISense> getSenses(String label) throws LinguisticOracleException {
-        List<ISense> result = Collections.emptyList();
-        try {
-            IndexWordSet lemmas = dic.lookupAllIndexWords(label);
-            if (null != lemmas && 0 < lemmas.size()) {
-                result = new ArrayList<>(lemmas.size());
-                for (POS pos : POS.values()) {
-                    IndexWord indexWord = lemmas.getIndexWord(pos);
-                    if (null != indexWord) {
-                        for (Synset synset : indexWord.getSenses()) {
-                            result.add(new WordNetSense(synset));
+        List<ISense> result = labelsCache.get(label);
+        if (null == result) {
+            result = Collections.emptyList();
+            try {
+                IndexWordSet lemmas = dic.lookupAllIndexWords(label);
+                if (null != lemmas && 0 < lemmas.size()) {
+                    List<ISense> senses = new ArrayList<>(lemmas.size());
+                    for (POS pos : POS.values()) {
+                        IndexWord indexWord = lemmas.getIndexWord(pos);
+                        if (null != indexWord) {
+                            for (Synset synset : indexWord.getSenses()) {
+                                senses.add(getSense(synset));
+                            }
                         }
                     }
+                    result = Collections.unmodifiableList(senses);
                 }
+            } catch (JWNLException e) {
+                throw new LinguisticOracleException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
             }
-        } catch (JWNLException e) {
-            throw new LinguisticOracleException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+            labelsCache.put(label, result);
         }
         return result;
     }
 
+    /**
+     * Returns the senses of each label, see {@link #getSenses(String)}, looking them up on as many threads
+     * as there are processors.
+     *
+     * @param labels labels
+     * @return map from each distinct label to its senses, in the order of the labels
+     * @throws LinguisticOracleException LinguisticOracleException
+     */
+    public Map<String, List<ISense>> getSenses(Collection<String> labels) throws LinguisticOracleException {
+        return getSenses(labels, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Returns the senses of each label, see {@link #getSenses(String)}. Each distinct label is looked up once,
+     * in sorted order, on the given amount of threads.
+     *
+     * @param labels      labels
+     * @param parallelism amount of threads
+     * @return map from each distinct label to its senses, in the order of the labels
+     * @throws LinguisticOracleException LinguisticOracleException
+     * @throws IllegalArgumentException  if the parallelism is not positive
+     */
+    public Map<String, List<ISense>> getSenses(Collection<String> labels, int parallelism) throws LinguisticOracleException {
+        return lookupAll(labels, parallelism, new Lookup<List<ISense>>() {
+            public List<ISense> get(String label) throws LinguisticOracleException {
+                return getSenses(label);
+            }
+        });
+    }
+
+    /**
+     * Looks each distinct key up once. The keys are sorted, so that neighbouring lookups read neighbouring
+     * lines of the dictionary index files, and the sorted keys are split into a contiguous range per thread.
+     *
+     * @param keys        keys
+     * @param parallelism amount of threads
+     * @param lookup      lookup of a single key
+     * @param <T>         result type
+     * @return map from each distinct key to its result, in the order of the keys
+     * @throws LinguisticOracleException LinguisticOracleException
+     */
+    private static <T> Map<String, T> lookupAll(Collection<String> keys, int parallelism, final Lookup<T> lookup)
+            throws LinguisticOracleException {
+        if (0 >= parallelism) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        Set<String> distinct = new LinkedHashSet<>(keys);
+        final String[] sorted = distinct.toArray(new String[distinct.size()]);
+        Arrays.sort(sorted);
+        final List<T> values = new ArrayList<>(Collections.<T>nCopies(sorted.length, null));
+        int threads = Math.min(parallelism, sorted.length);
+        if (1 >= threads) {
+            for (int i = 0; i < sorted.length; i++) {
+                values.set(i, lookup.get(sorted[i]));
+            }
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<Void>> ranges = new ArrayList<>(threads);
+                for (int t = 0; t < threads; t++) {
+                    final int from = (int) ((long) sorted.length * t / threads);
+                    final int to = (int) ((long) sorted.length * (t + 1) / threads);
+                    ranges.add(executor.submit(new Callable<Void>() {
+                        public Void call() throws LinguisticOracleException {
+                            for (int i = from; i < to; i++) {
+                                values.set(i, lookup.get(sorted[i]));
+                            }
+                            return null;
+                        }
+                    }));
+                }
+                for (Future<Void> range : ranges) {
+                    range.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new LinguisticOracleException("Interrupted while looking up " + sorted.length + " labels", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof LinguisticOracleException) {
+                    throw (LinguisticOracleException) cause;
+                }
+                throw new LinguisticOracleException(cause.getClass().getSimpleName() + ": " + cause.getMessage(), cause);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        Map<String, T> result = new LinkedHashMap<>(2 * sorted.length);
+        for (String key : distinct) {
+            result.put(key, values.get(Arrays.binarySearch(sorted, key)));
+        }
+        return result;
+    }
+
+    /**
+     * Lookup of a single label, run by {@link #lookupAll}.
+     */
+    private interface Lookup<T> {
+        T get(String key) throws LinguisticOracleException;
+    }
+
+    /**
+     * Returns the counters of the label senses cache, to size it.
+     *
+     * @return the counters of the label senses cache
+     */
+    public CacheStatistics getLabelsCacheStatistics() {
+        return labelsCache.getStatistics();
+    }
+
+    /**
+     * Returns the shared sense instance of the synset.
+     *
+     * @param synset synset
+     * @return sense
+     */
+    private WordNetSense getSense(Synset synset) {
+        Long key = ((long) synset.getPOS().getId() << 32) | synset.getOffset();
+        WordNetSense result = senses.get(key);
+        if (null == result) {
+            result = new WordNetSense(synset.getPOS(), synset.getOffset(), dic, this);
+            WordNetSense existing = senses.putIfAbsent(key, result);
+            if (null != existing) {
+                result = existing;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the parents or the children of the sense, see {@link WordNetSense#getParents(int)}.
+     * The lists are cached and shared, and each call returns a copy the caller may modify.
+     *
+     * @param sense   sense of this oracle
+     * @param parents true for the parents, false for the children
+     * @param depth   depth
+     * @return list of senses
+     * @throws LinguisticOracleException LinguisticOracleException
+     */
+    List<ISense> getRelatives(WordNetSense sense, boolean parents, int depth) throws LinguisticOracleException {
+        if (0 > depth || MAX_CACHED_DEPTH < depth || 0xFFFFFFFFL < sense.getOffset()) {
+            return toSenses(WordNetSense.getRelatives(sense.getLinkedSynset(), parents, depth));
+        }
+        Long key = ((long) depth << 36) | (parents ? 1L << 35 : 0) | ((long) sense.getPOS().getId() << 32) | sense.getOffset();
+        List<ISense> result = hierarchyCache.get(key);
+        if (null == result) {
+            result = Collections.unmodifiableList(toSenses(WordNetSense.getRelatives(sense.getLinkedSynset(), parents, depth)));
+            hierarchyCache.put(key, result);
+        }
+        return new ArrayList<>(result);
+    }
+
+    private List<ISense> toSenses(List<Synset> synsets) {
+        List<ISense> result = new ArrayList<>(synsets.size());
+        for (Synset synset : synsets) {
+            result.add(getSense(synset));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the counters of the parents and children cache, to size it.
+     *
+     * @return the counters of the parents and children cache
+     */
+    public CacheStatistics getHierarchyCacheStatistics() {
+        return hierarchyCache.getStatistics();
+    }
+
+    /**
+     * Returns the base forms of the derivation, or the derivation itself if it has none.
+     * The base forms are cached, and each call returns a copy the caller may modify.
+     *
+     * @param derivation derivation
+     * @return list of base forms
+     * @throws LinguisticOracleException LinguisticOracleException
+     */
     public List<String> getBaseForms(String derivation) throws LinguisticOracleException {
+        return new ArrayList<>(getCachedBaseForms(derivation));
+    }
+
+    private List<String> getCachedBaseForms(String derivation) throws LinguisticOracleException {
+        List<String> result = baseFormsCache.get(derivation);
+        if (null == result) {
+            if (null != unknownTokensCache.get(derivation)) {
+                result = Collections.singletonList(derivation);
+            } else {
+                result = lookupBaseForms(derivation);
+                if (null == result) {
+                    unknownTokensCache.put(derivation, Boolean.TRUE);
+                    result = Collections.singletonList(derivation);
+                } else {
+                    baseFormsCache.put(derivation, result);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the base forms of each derivation, see {@link #getBaseForms(String)}, looking them up on as many
+     * threads as there are processors.
+     *
+     * @param derivations derivations
+     * @return map from each distinct derivation to its base forms, in the order of the derivations
+     * @throws LinguisticOracleException LinguisticOracleException
+     */
+    public Map<String, List<String>> getBaseForms(Collection<String> derivations) throws LinguisticOracleException {
+        return getBaseForms(derivations, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Returns the base forms of each derivation, see {@link #getBaseForms(String)}. Each distinct derivation
+     * is looked up once, in sorted order, on the given amount of threads.
+     *
+     * @param derivations derivations
+     * @param parallelism amount of threads
+     * @return map from each distinct derivation to its base forms, in the order of the derivations
+     * @throws LinguisticOracleException LinguisticOracleException
+     * @throws IllegalArgumentException  if the parallelism is not positive
+     */
+    public Map<String, List<String>> getBaseForms(Collection<String> derivations, int parallelism) throws LinguisticOracleException {
+        return lookupAll(derivations, parallelism, new Lookup<List<String>>() {
+            public List<String> get(String derivation) throws LinguisticOracleException {
+                return getBaseForms(derivation);
+            }
+        });
+    }
+
+    /**
+     * Returns the counters of the base forms cache, to size it.
+     *
+     * @return the counters of the base forms cache
+     */
+    public CacheStatistics getBaseFormsCacheStatistics() {
+        return baseFormsCache.getStatistics();
+    }
+
+    /**
+     * Returns the counters of the cache of tokens without base forms, to size it.
+     *
+     * @return the counters of the unknown tokens cache
+     */
+    public CacheStatistics getUnknownTokensCacheStatistics() {
+        return unknownTokensCache.getStatistics();
+    }
+
+    /**
+     * Looks the base forms of the derivation up in the dictionary.
+     *
+     * @param derivation derivation
+     * @return unmodifiable list of base forms or null, if the derivation has none
+     * @throws LinguisticOracleException LinguisticOracleException
+     */
+    private List<String> lookupBaseForms(String derivation) throws LinguisticOracleException {
         try {
-            List<String> result = new ArrayList<>();
+            Set<String> result = new LinkedHashSet<>();
             IndexWordSet tmp = dic.lookupAllIndexWords(derivation);
             if (null != tmp) {
                 IndexWord[] indexWordArray = tmp.getIndexWordArray();
                 for (IndexWord indexWord : indexWordArray) {
                     String lemma = indexWord.getLemma();
-                    if (null != lemma && !result.contains(lemma)) {
+                    if (null != lemma) {
                         result.add(lemma);
                     }
                 }
             } else {
                 if (null != dic.getMorphologicalProcessor()) {
                     for (POS pos : POS.values()) {
-                        List<String> posLemmas = dic.getMorphologicalProcessor().lookupAllBaseForms(pos, derivation);
-                        for (String lemma : posLemmas) {
-                            if (!result.contains(lemma)) {
-                                result.add(lemma);
-                            }
-                        }
+                        result.addAll(dic.getMorphologicalProcessor().lookupAllBaseForms(pos, derivation));
                     }
                 }
             }
             if (0 == result.size()) {
-                result.add(derivation);
+                return null;
             }
-            return result;
+            return Collections.unmodifiableList(new ArrayList<>(result));
         } catch (JWNLException e) {
             throw new LinguisticOracleException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
         }
@@ -233,6 +629,31 @@ public class WordNet implements ILinguisticOracle, ISenseMatcher {
         return IMappingElement.IDK;
     }
 
+    public char[][] getRelations(List<List<ISense>> sourceSenses, List<List<ISense>> targetSenses) throws SenseMatcherException {
+        char[][] result = new char[sourceSenses.size()][targetSenses.size()];
+        getRelations(sourceSenses, targetSenses, result, 0, result.length);
+        return result;
+    }
+
+    public void getRelations(List<List<ISense>> sourceSenses, List<List<ISense>> targetSenses,
+                             char[][] relations, int fromRow, int toRow) throws SenseMatcherException {
+        RelationMatrix.checkRange(sourceSenses, targetSenses, relations, fromRow, toRow);
+        for (int i = fromRow; i < toRow; i++) {
+            List<ISense> source = sourceSenses.get(i);
+            for (int j = 0; j < relations[i].length; j++) {
+                // each pair has a single relation in the cache, the best pair gives the relation of the concepts
+                int rank = RelationMatrix.IDK;
+                List<ISense> target = targetSenses.get(j);
+                for (int s = 0; s < source.size() && RelationMatrix.EQUIVALENCE < rank; s++) {
+                    for (int t = 0; t < target.size() && RelationMatrix.EQUIVALENCE < rank; t++) {
+                        rank = Math.min(rank, RelationMatrix.rank(getRelationFromOracle(source.get(s), target.get(t))));
+                    }
+                }
+                relations[i][j] = RelationMatrix.RANKED[rank];
+            }
+        }
+    }
+
     /**
      * Method which returns whether particular type of relation between
      * two senses holds(according to oracle).
@@ -245,39 +666,70 @@ public class WordNet implements ILinguisticOracle, ISenseMatcher {
      * @throws it.unitn.disi.smatch.oracles.SenseMatcherException SenseMatcherException
      */
     private boolean getRelationFromOracle(ISense source, ISense target, char rel) throws SenseMatcherException {
-        final String sensePairKey = source.toString() + "\t" + target.toString();
-        Character cachedRelation = sensesCache.get(sensePairKey);
+        return rel == getRelationFromOracle(source, target);
+    }
+
+    /**
+     * Returns the relation between two senses, from the cache or from the oracle.
+     * Relations are checked in the order =, !, &lt;, &gt; and the first one which holds is cached.
+     *
+     * @param source source sense
+     * @param target target sense
+     * @return the relation between the senses
+     * @throws SenseMatcherException SenseMatcherException
+     */
+    private char getRelationFromOracle(ISense source, ISense target) throws SenseMatcherException {
+        if (null != relations && isPrecompiled(source, target)) {
+            // lookups are cheaper than the cache, relations are checked in the order of the precompiled matcher
+            if (relations.isSourceSynonymTarget(source, target)) {
+                return IMappingElement.EQUIVALENCE;
+            } else if (relations.isSourceLessGeneralThanTarget(source, target)) {
+                return IMappingElement.LESS_GENERAL;
+            } else if (relations.isSourceMoreGeneralThanTarget(source, target)) {
+                return IMappingElement.MORE_GENERAL;
+            } else if (relations.isSourceOppositeToTarget(source, target)) {
+                return IMappingElement.DISJOINT;
+            }
+            return IMappingElement.IDK;
+        }
+        char result = sensesCache.get(source, target);
         // if we don't have cached relation check which one exist and put it to cash
-        if (null == cachedRelation) {
-            // check for synonymy
+        if (SenseRelationCache.NONE == result) {
             if (isSourceSynonymTarget(source, target)) {
-                sensesCache.put(sensePairKey, IMappingElement.EQUIVALENCE);
-                return rel == IMappingElement.EQUIVALENCE;
+                result = IMappingElement.EQUIVALENCE;
+            } else if (isSourceOppositeToTarget(source, target)) {
+                result = IMappingElement.DISJOINT;
+            } else if (isSourceLessGeneralThanTarget(source, target)) {
+                result = IMappingElement.LESS_GENERAL;
+            } else if (isSourceMoreGeneralThanTarget(source, target)) {
+                result = IMappingElement.MORE_GENERAL;
             } else {
-                // check for opposite meaning
-                if (isSourceOppositeToTarget(source, target)) {
-                    sensesCache.put(sensePairKey, IMappingElement.DISJOINT);
-                    return rel == IMappingElement.DISJOINT;
-                } else {
-                    // check for less general than
-                    if (isSourceLessGeneralThanTarget(source, target)) {
-                        sensesCache.put(sensePairKey, IMappingElement.LESS_GENERAL);
-                        return rel == IMappingElement.LESS_GENERAL;
-                    } else {
-                        // check for more general than
-                        if (isSourceMoreGeneralThanTarget(source, target)) {
-                            sensesCache.put(sensePairKey, IMappingElement.MORE_GENERAL);
-                            return rel == IMappingElement.MORE_GENERAL;
-                        } else {
-                            sensesCache.put(sensePairKey, IMappingElement.IDK);
-                            return IMappingElement.IDK == rel;
-                        }
-                    }
-                }
+                result = IMappingElement.IDK;
             }
-        } else {
-            return rel == cachedRelation;
+            sensesCache.put(source, target, result);
         }
+        return result;
+    }
+
+    /**
+     * Returns the counters of the sense pair relation cache, to size it.
+     *
+     * @return the counters of the sense pair relation cache
+     */
+    public CacheStatistics getSensesCacheStatistics() {
+        return sensesCache.getStatistics();
+    }
+
+    /**
+     * Checks whether the precompiled relations hold all relations between the senses.
+     *
+     * @param source source sense
+     * @param target target sense
+     * @return true if the senses are WordNet senses with all relations precompiled
+     */
+    private static boolean isPrecompiled(ISense source, ISense target) {
+        return (source instanceof WordNetSense) && (target instanceof WordNetSense)
+                && KeySetSenseMatcher.hasAntonyms(((WordNetSense) source).getPOS(), ((WordNetSense) target).getPOS());
     }
 
     public boolean isSourceSynonymTarget(ISense source, ISense target) throws SenseMatcherException {
@@ -285,11 +737,14 @@ public class WordNet implements ILinguisticOracle, ISenseMatcher {
             return true;
         }
         if ((source instanceof WordNetSense) && (target instanceof WordNetSense)) {
+            if (null != relations) {
+                return relations.isSourceSynonymTarget(source, target);
+            }
             try {
                 WordNetSense sourceSyn = (WordNetSense) source;
                 WordNetSense targetSyn = (WordNetSense) target;
                 //is synonym
-                RelationshipList list = RelationshipFinder.findRelationships(sourceSyn.getSynset(), targetSyn.getSynset(), PointerType.SIMILAR_TO);
+                RelationshipList list = RelationshipFinder.findRelationships(sourceSyn.findSynset(), targetSyn.findSynset(), PointerType.SIMILAR_TO);
                 if (list.size() > 0) {
                     return !((POS.ADJECTIVE == sourceSyn.getPOS()) || (POS.ADJECTIVE == targetSyn.getPOS())) || (list.get(0).getDepth() == 0);
                 }
@@ -305,12 +760,15 @@ public class WordNet implements ILinguisticOracle, ISenseMatcher {
             return false;
         }
         if ((source instanceof WordNetSense) && (target instanceof WordNetSense)) {
+            if (null != relations && isPrecompiled(source, target)) {
+                return relations.isSourceOppositeToTarget(source, target);
+            }
             try {
                 WordNetSense sourceSyn = (WordNetSense) source;
                 WordNetSense targetSyn = (WordNetSense) target;
                 //  Checks whether senses are siblings (thus they are opposite)
                 if (POS.NOUN != sourceSyn.getPOS() || POS.NOUN != targetSyn.getPOS()) {
-                    RelationshipList list = RelationshipFinder.findRelationships(sourceSyn.getSynset(), targetSyn.getSynset(), PointerType.ANTONYM);
+                    RelationshipList list = RelationshipFinder.findRelationships(sourceSyn.findSynset(), targetSyn.findSynset(), PointerType.ANTONYM);
                     if (list.size() > 0) {
                         return true;
                     }
@@ -338,6 +796,9 @@ public class WordNet implements ILinguisticOracle, ISenseMatcher {
 
     public boolean isSourceMoreGeneralThanTarget(ISense source, ISense target) throws SenseMatcherException {
         if ((source instanceof WordNetSense) && (target instanceof WordNetSense)) {
+            if (null != relations) {
+                return relations.isSourceMoreGeneralThanTarget(source, target);
+            }
             WordNetSense sourceSyn = (WordNetSense) source;
             WordNetSense targetSyn = (WordNetSense) target;
 
@@ -346,18 +807,21 @@ public class WordNet implements ILinguisticOracle, ISenseMatcher {
                     return false;
                 }
                 try {
+                    // senses hold only offsets, resolve the synsets once
+                    Synset sourceSynset = sourceSyn.findSynset();
+                    Synset targetSynset = targetSyn.findSynset();
                     // find all more general relationships from WordNet
-                    RelationshipList list = RelationshipFinder.findRelationships(sourceSyn.getSynset(), targetSyn.getSynset(), PointerType.HYPERNYM);
+                    RelationshipList list = RelationshipFinder.findRelationships(sourceSynset, targetSynset, PointerType.HYPERNYM);
                     if (!isUnidirectional(list)) {
-                        PointerTargetTree ptt = PointerUtils.getInheritedMemberHolonyms(targetSyn.getSynset());
-                        PointerTargetNodeList ptnl = PointerUtils.getMemberHolonyms(targetSyn.getSynset());
-                        if (!traverseTree(ptt, ptnl, sourceSyn.getSynset())) {
-                            ptt = PointerUtils.getInheritedPartHolonyms(targetSyn.getSynset());
-                            ptnl = PointerUtils.getPartHolonyms(targetSyn.getSynset());
-                            if (!traverseTree(ptt, ptnl, sourceSyn.getSynset())) {
-                                ptt = PointerUtils.getInheritedSubstanceHolonyms(targetSyn.getSynset());
-                                ptnl = PointerUtils.getSubstanceHolonyms(targetSyn.getSynset());
-                                if (traverseTree(ptt, ptnl, sourceSyn.getSynset())) {
+                        PointerTargetTree ptt = PointerUtils.getInheritedMemberHolonyms(targetSynset);
+                        PointerTargetNodeList ptnl = PointerUtils.getMemberHolonyms(targetSynset);
+                        if (!traverseTree(ptt, ptnl, sourceSynset)) {
+                            ptt = PointerUtils.getInheritedPartHolonyms(targetSynset);
+                            ptnl = PointerUtils.getPartHolonyms(targetSynset);
+                            if (!traverseTree(ptt, ptnl, sourceSynset)) {
+                                ptt = PointerUtils.getInheritedSubstanceHolonyms(targetSynset);
+                                ptnl = PointerUtils.getSubstanceHolonyms(targetSynset);
+                                if (traverseTree(ptt, ptnl, sourceSynset)) {
                                     return true;
                                 }
                             } else {
@@ -391,14 +855,59 @@ public class WordNet implements ILinguisticOracle, ISenseMatcher {
             if (null == synset) {
                 throw new LinguisticOracleException("Synset not found: " + id);
             }
-            return new WordNetSense(synset);
+            return getSense(synset);
         } catch (JWNLException e) {
             throw new LinguisticOracleException(e.getMessage(), e);
         }
     }
 
+    /**
+     * Returns the remaining tokens of all multiwords starting with the token. This is a view over
+     * the multiword index, see {@link #getMultiwordIndex()} to find the longest multiword in a token sequence.
+     *
+     * @param beginning the first token
+     * @return the remaining tokens of each multiword or null if there are none
+     * @throws LinguisticOracleException LinguisticOracleException
+     */
     public List<List<String>> getMultiwords(String beginning) throws LinguisticOracleException {
-        return multiwords.get(beginning);
+        return getMultiwordIndex().getMultiwords(beginning);
+    }
+
+    /**
+     * Returns the multiword index, loading it on the first call.
+     *
+     * @return the multiword index
+     * @throws LinguisticOracleException if the multiwords can not be loaded
+     */
+    public MultiwordIndex getMultiwordIndex() throws LinguisticOracleException {
+        MultiwordIndex result = multiwords;
+        if (null == result) {
+            synchronized (multiwordsLock) {
+                result = multiwords;
+                if (null == result) {
+                    try {
+                        result = loadMultiwords();
+                    } catch (SMatchException e) {
+                        throw new LinguisticOracleException(e.getMessage(), e);
+                    }
+                    multiwords = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private MultiwordIndex loadMultiwords() throws SMatchException {
+        MultiwordIndex result;
+        if (null != multiwordsFileName) {
+            log.info("Loading multiwords: " + multiwordsFileName);
+            result = MultiwordIndex.read(multiwordsFileName);
+            log.info("loaded multiwords: " + result.size());
+        } else {
+            // create it
+            result = new MultiwordIndex(createMultiwords(dic));
+        }
+        return result;
     }
 
     /**
@@ -448,24 +957,6 @@ public class WordNet implements ILinguisticOracle, ISenseMatcher {
         return false;
     }
 
-    /**
-     * Loads the hashmap with multiwords. The multiwords are stored in the following format:
-     * Key - the first word in the multiwords
-     * Value - List of Lists, which contain the other words in the all the multiwords starting with key.
-     *
-     * @param url hashmap location
-     * @return multiwords hashmap
-     * @throws SMatchException SMatchException
-     */
-    @SuppressWarnings("unchecked")
-    private static Map<String, List<List<String>>> readHash(String url) throws SMatchException {
-        try {
-            return (Map<String, List<List<String>>>) MiscUtils.readObject(url);
-        } catch (DISIException e) {
-            throw new SMatchException(e.getMessage(), e);
-        }
-    }
-
     /**
      * Create caches of WordNet to speed up matching.
      *
@@ -481,51 +972,92 @@ public class WordNet implements ILinguisticOracle, ISenseMatcher {
         log.info("Done");
     }
 
-    private static Map<String, List<List<String>>> createMultiwordHash(Dictionary dic) throws SMatchException {
-        log.info("Creating multiword hash...");
-        Map<String, List<List<String>>> result = new HashMap<>();
+    /**
+     * Collects the multiwords of all parts of speech, scanning each part of speech on its own thread.
+     *
+     * @param dic dictionary
+     * @return distinct multiwords, as token lists
+     * @throws SMatchException SMatchException
+     */
+    private static Set<List<String>> createMultiwords(final Dictionary dic) throws SMatchException {
+        log.info("Creating multiwords...");
+        long start = System.currentTimeMillis();
+        // the same lemma under several parts of speech is stored once
+        final Set<List<String>> result = Collections.newSetFromMap(new ConcurrentHashMap<List<String>, Boolean>());
         POS[] parts = new POS[]{POS.NOUN, POS.ADJECTIVE, POS.VERB, POS.ADVERB};
-        for (POS pos : parts) {
-            collectMultiwords(dic, result, pos);
+        ExecutorService executor = Executors.newFixedThreadPool(parts.length);
+        try {
+            List<Future<Integer>> counts = new ArrayList<>(parts.length);
+            for (final POS pos : parts) {
+                counts.add(executor.submit(new Callable<Integer>() {
+                    public Integer call() throws JWNLException {
+                        return collectMultiwords(dic, result, pos);
+                    }
+                }));
+            }
+            int count = 0;
+            for (Future<Integer> c : counts) {
+                count += c.get();
+            }
+            log.info("Multiwords: " + result.size() + " (" + (count - result.size()) + " duplicates) in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SMatchException("Interrupted while creating multiwords", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw new SMatchException(cause.getClass().getSimpleName() + ": " + cause.getMessage(), cause);
+        } finally {
+            executor.shutdownNow();
         }
-        log.info("Multiwords: " + result.size());
         return result;
     }
 
     private static void writeMultiwords(Dictionary dic, String multiwordsFileName) throws SMatchException {
-        try {
-            MiscUtils.writeObject(createMultiwordHash(dic), multiwordsFileName);
-        } catch (DISIException e) {
-            throw new SMatchException(e.getMessage(), e);
-        }
+        new MultiwordIndex(createMultiwords(dic)).write(multiwordsFileName);
     }
 
-    private static void collectMultiwords(Dictionary dic, Map<String, List<List<String>>> multiwords, POS pos) throws SMatchException {
-        try {
-            int count = 0;
-            Iterator i = dic.getIndexWordIterator(pos);
-            while (i.hasNext()) {
-                IndexWord iw = (IndexWord) i.next();
-                String lemma = iw.getLemma();
-                if (-1 < lemma.indexOf(' ')) {
-                    count++;
-                    if (0 == count % 10000) {
-                        log.debug("multiwords: " + count);
-                    }
-                    String[] tokens = lemma.split(" ");
-                    List<List<String>> mwEnds = multiwords.get(tokens[0]);
-                    if (null == mwEnds) {
-                        mwEnds = new ArrayList<>();
-                    }
-                    List<String> currentMWEnd = new ArrayList<>(Arrays.asList(tokens));
-                    currentMWEnd.remove(0);
-                    mwEnds.add(currentMWEnd);
-                    multiwords.put(tokens[0], mwEnds);
+    private static int collectMultiwords(Dictionary dic, Set<List<String>> multiwords, POS pos) throws JWNLException {
+        int count = 0;
+        Iterator i = dic.getIndexWordIterator(pos);
+        while (i.hasNext()) {
+            IndexWord iw = (IndexWord) i.next();
+            String lemma = iw.getLemma();
+            if (-1 < lemma.indexOf(' ')) {
+                count++;
+                if (0 == count % 10000) {
+                    log.debug("multiwords: " + count);
                 }
+                multiwords.add(split(lemma));
             }
-            log.info(pos.getKey() + " multiwords: " + count);
-        } catch (JWNLException e) {
-            throw new SMatchException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
         }
+        log.info(pos.getKey() + " multiwords: " + count);
+        return count;
+    }
+
+    /**
+     * Splits the lemma at spaces, like lemma.split(" ") does, without regular expressions.
+     *
+     * @param lemma lemma
+     * @return tokens
+     */
+    static List<String> split(String lemma) {
+        int length = lemma.length();
+        while (0 < length && ' ' == lemma.charAt(length - 1)) {
+            length--;
+        }
+        int count = 1;
+        for (int i = lemma.indexOf(' '); -1 < i && i < length; i = lemma.indexOf(' ', i + 1)) {
+            count++;
+        }
+        String[] tokens = new String[count];
+        int from = 0;
+        for (int t = 0; t < count - 1; t++) {
+            int to = lemma.indexOf(' ', from);
+            tokens[t] = lemma.substring(from, to);
+            from = to + 1;
+        }
+        tokens[count - 1] = lemma.substring(from, length);
+        return Arrays.asList(tokens);
     }
 }
\ No newline at end of file
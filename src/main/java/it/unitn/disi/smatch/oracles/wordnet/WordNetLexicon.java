@@ -0,0 +1,380 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+import it.unitn.disi.smatch.SMatchException;
+import net.sf.extjwnl.JWNLException;
+import net.sf.extjwnl.data.Exc;
+import net.sf.extjwnl.data.IndexWord;
+import net.sf.extjwnl.data.POS;
+import net.sf.extjwnl.dictionary.Dictionary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+
+/**
+ * Lemmas and morphological exceptions of WordNet, compiled from a dictionary into a single little-endian buffer,
+ * which is also the layout of the lexicon file. All strings, lemmas, exceptional derivations and their base forms,
+ * are kept once in a table sorted by their UTF-8 bytes. For each string and part of speech the lexicon holds
+ * the synset offsets of the lemma, in the order of its senses, and the base forms of the derivation, as string
+ * positions. Immutable and safe to share between threads.
+ * <pre>
+ * int   magic      (SMWL)
+ * short version
+ * short reserved
+ * int   strings    amount of strings
+ * int   bytes      length of the string table
+ * int   offsets    amount of synset offsets
+ * int   forms      amount of base forms
+ * int   stringStart[strings + 1]      offsets of the strings in the string table
+ * int   offsetStart[strings * 4 + 1]  synset offsets of string s and part of speech p start at s * 4 + p
+ * int   formStart[strings * 4 + 1]    base forms of string s and part of speech p start at s * 4 + p
+ * int   offsets[offsets]
+ * int   forms[forms]                  positions of the base forms in the string table
+ * byte  strings[bytes]                UTF-8 bytes of the strings
+ * </pre>
+ * Parts of speech are numbered in the order of {@link POS#values()}. Files are memory-mapped, so reading
+ * a lexicon needs neither a dictionary nor a pass over the data.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class WordNetLexicon {
+
+    private static final Logger log = LoggerFactory.getLogger(WordNetLexicon.class);
+
+    public static final int MAGIC = 0x4C574D53; // "SMWL" in little-endian
+    public static final short VERSION = 1;
+
+    public static final int HEADER_SIZE = 24;
+
+    private static final POS[] PARTS = POS.values();
+
+    private final ByteBuffer data;
+    private final StringTable strings;
+    private final IntBuffer offsetStart;
+    private final IntBuffer formStart;
+    private final IntBuffer offsets;
+    private final IntBuffer forms;
+
+    /**
+     * Builds the lexicon.
+     *
+     * @param lemmas     synset offsets of each lemma, in the order of its senses, by part of speech
+     * @param exceptions base forms of each exceptional derivation, by part of speech
+     * @throws IllegalArgumentException if a lemma has no senses or a synset offset does not fit the layout
+     */
+    public WordNetLexicon(Map<POS, Map<String, long[]>> lemmas, Map<POS, Map<String, List<String>>> exceptions) {
+        this(build(lemmas, exceptions));
+    }
+
+    /**
+     * Constructs the lexicon over its binary layout.
+     *
+     * @param data lexicon layout
+     * @throws IllegalArgumentException if the layout is invalid
+     */
+    private WordNetLexicon(ByteBuffer data) {
+        this.data = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (HEADER_SIZE > this.data.capacity() || MAGIC != this.data.getInt(0)) {
+            throw new IllegalArgumentException("Unknown lexicon file format");
+        }
+        short version = this.data.getShort(4);
+        if (VERSION != version) {
+            throw new IllegalArgumentException("Unsupported lexicon file version " + version);
+        }
+        int count = this.data.getInt(8);
+        int bytes = this.data.getInt(12);
+        int offsetCount = this.data.getInt(16);
+        int formCount = this.data.getInt(20);
+        long length = HEADER_SIZE + (count + 1L + 2L * (count * (long) PARTS.length + 1) + offsetCount + formCount)
+                * (Integer.SIZE / Byte.SIZE) + bytes;
+        if (0 > count || 0 > bytes || 0 > offsetCount || 0 > formCount || this.data.capacity() != length) {
+            throw new IllegalArgumentException("Invalid lexicon file layout");
+        }
+        int position = HEADER_SIZE;
+        IntBuffer stringStart = section(position, (count + 1) * (Integer.SIZE / Byte.SIZE)).asIntBuffer();
+        position += stringStart.capacity() * (Integer.SIZE / Byte.SIZE);
+        offsetStart = section(position, (count * PARTS.length + 1) * (Integer.SIZE / Byte.SIZE)).asIntBuffer();
+        position += offsetStart.capacity() * (Integer.SIZE / Byte.SIZE);
+        formStart = section(position, (count * PARTS.length + 1) * (Integer.SIZE / Byte.SIZE)).asIntBuffer();
+        position += formStart.capacity() * (Integer.SIZE / Byte.SIZE);
+        offsets = section(position, offsetCount * (Integer.SIZE / Byte.SIZE)).asIntBuffer();
+        position += offsets.capacity() * (Integer.SIZE / Byte.SIZE);
+        forms = section(position, formCount * (Integer.SIZE / Byte.SIZE)).asIntBuffer();
+        position += forms.capacity() * (Integer.SIZE / Byte.SIZE);
+        strings = new StringTable(stringStart, section(position, bytes));
+    }
+
+    private ByteBuffer section(int position, int length) {
+        ByteBuffer result = data.duplicate();
+        result.limit(position + length).position(position);
+        return result.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static ByteBuffer build(Map<POS, Map<String, long[]>> lemmas, Map<POS, Map<String, List<String>>> exceptions) {
+        List<String> all = new ArrayList<>();
+        for (Map<String, long[]> partLemmas : lemmas.values()) {
+            all.addAll(partLemmas.keySet());
+        }
+        for (Map<String, List<String>> partExceptions : exceptions.values()) {
+            for (Map.Entry<String, List<String>> exception : partExceptions.entrySet()) {
+                all.add(exception.getKey());
+                all.addAll(exception.getValue());
+            }
+        }
+        String[] sorted = StringTable.sort(all);
+        Map<String, Integer> ids = new HashMap<>();
+        byte[][] encoded = new byte[sorted.length][];
+        int bytes = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            ids.put(sorted[i], i);
+            encoded[i] = sorted[i].getBytes(StringTable.UTF8);
+            bytes += encoded[i].length;
+        }
+
+        int slots = sorted.length * PARTS.length;
+        long[][] slotOffsets = new long[slots][];
+        int[][] slotForms = new int[slots][];
+        int offsetCount = 0;
+        int formCount = 0;
+        for (POS pos : PARTS) {
+            Map<String, long[]> partLemmas = lemmas.get(pos);
+            if (null != partLemmas) {
+                for (Map.Entry<String, long[]> lemma : partLemmas.entrySet()) {
+                    long[] senses = lemma.getValue();
+                    if (0 == senses.length) {
+                        throw new IllegalArgumentException("Lemma without senses: " + lemma.getKey());
+                    }
+                    for (long offset : senses) {
+                        if (0 > offset || Integer.MAX_VALUE < offset) {
+                            throw new IllegalArgumentException("Synset offset out of range: " + offset);
+                        }
+                    }
+                    slotOffsets[ids.get(lemma.getKey()) * PARTS.length + pos.ordinal()] = senses;
+                    offsetCount += senses.length;
+                }
+            }
+            Map<String, List<String>> partExceptions = exceptions.get(pos);
+            if (null != partExceptions) {
+                for (Map.Entry<String, List<String>> exception : partExceptions.entrySet()) {
+                    int[] baseForms = new int[exception.getValue().size()];
+                    for (int i = 0; i < baseForms.length; i++) {
+                        baseForms[i] = ids.get(exception.getValue().get(i));
+                    }
+                    slotForms[ids.get(exception.getKey()) * PARTS.length + pos.ordinal()] = baseForms;
+                    formCount += baseForms.length;
+                }
+            }
+        }
+
+        ByteBuffer result = ByteBuffer.allocate(HEADER_SIZE + (sorted.length + 1 + 2 * (slots + 1) + offsetCount + formCount)
+                * (Integer.SIZE / Byte.SIZE) + bytes).order(ByteOrder.LITTLE_ENDIAN);
+        result.putInt(MAGIC);
+        result.putShort(VERSION);
+        result.putShort((short) 0);
+        result.putInt(sorted.length);
+        result.putInt(bytes);
+        result.putInt(offsetCount);
+        result.putInt(formCount);
+        int start = 0;
+        for (byte[] string : encoded) {
+            result.putInt(start);
+            start += string.length;
+        }
+        result.putInt(start);
+        start = 0;
+        for (long[] slot : slotOffsets) {
+            result.putInt(start);
+            start += null == slot ? 0 : slot.length;
+        }
+        result.putInt(start);
+        start = 0;
+        for (int[] slot : slotForms) {
+            result.putInt(start);
+            start += null == slot ? 0 : slot.length;
+        }
+        result.putInt(start);
+        for (long[] slot : slotOffsets) {
+            if (null != slot) {
+                for (long offset : slot) {
+                    result.putInt((int) offset);
+                }
+            }
+        }
+        for (int[] slot : slotForms) {
+            if (null != slot) {
+                for (int form : slot) {
+                    result.putInt(form);
+                }
+            }
+        }
+        for (byte[] string : encoded) {
+            result.put(string);
+        }
+        result.flip();
+        return result;
+    }
+
+    /**
+     * Compiles the lexicon of the dictionary.
+     *
+     * @param dic dictionary
+     * @return lexicon
+     * @throws SMatchException SMatchException
+     */
+    public static WordNetLexicon create(Dictionary dic) throws SMatchException {
+        log.info("Creating lexicon...");
+        Map<POS, Map<String, long[]>> lemmas = new EnumMap<>(POS.class);
+        Map<POS, Map<String, List<String>>> exceptions = new EnumMap<>(POS.class);
+        try {
+            for (POS pos : PARTS) {
+                Map<String, long[]> partLemmas = new HashMap<>();
+                Iterator<IndexWord> i = dic.getIndexWordIterator(pos);
+                while (i.hasNext()) {
+                    IndexWord indexWord = i.next();
+                    partLemmas.put(indexWord.getLemma(), indexWord.getSynsetOffsets());
+                }
+                lemmas.put(pos, partLemmas);
+                Map<String, List<String>> partExceptions = new HashMap<>();
+                Iterator<Exc> e = dic.getExceptionIterator(pos);
+                while (e.hasNext()) {
+                    Exc exc = e.next();
+                    partExceptions.put(exc.getLemma(), exc.getExceptions());
+                }
+                exceptions.put(pos, partExceptions);
+                log.info(pos.getKey() + " lemmas: " + partLemmas.size() + ", exceptions: " + partExceptions.size());
+            }
+            return new WordNetLexicon(lemmas, exceptions);
+        } catch (JWNLException | IllegalArgumentException e) {
+            throw new SMatchException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes the lexicon into a file.
+     *
+     * @param fileName file name
+     * @throws SMatchException SMatchException
+     */
+    public void write(String fileName) throws SMatchException {
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "rw")) {
+            file.setLength(0);
+            ByteBuffer buffer = data.duplicate();
+            buffer.clear();
+            RelationFiles.writeFully(file.getChannel(), buffer);
+        } catch (IOException e) {
+            throw new SMatchException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Maps a lexicon file into memory.
+     *
+     * @param fileName file name
+     * @return lexicon
+     * @throws SMatchException SMatchException
+     */
+    public static WordNetLexicon read(String fileName) throws SMatchException {
+        ByteBuffer data;
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "r")) {
+            FileChannel channel = file.getChannel();
+            data = RelationFiles.map(channel, 0, channel.size());
+        } catch (IOException e) {
+            throw new SMatchException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+        }
+        try {
+            return new WordNetLexicon(data);
+        } catch (IllegalArgumentException e) {
+            throw new SMatchException(e.getMessage() + ": " + fileName, e);
+        }
+    }
+
+    /**
+     * Returns the amount of strings.
+     *
+     * @return the amount of strings
+     */
+    public int size() {
+        return strings.size();
+    }
+
+    /**
+     * Returns the position of the string, the key of the other lookups.
+     *
+     * @param string lemma or derivation
+     * @return the position or -1 if the lexicon does not contain the string
+     */
+    public int find(String string) {
+        return strings.find(string);
+    }
+
+    public String getString(int id) {
+        return strings.get(id);
+    }
+
+    public boolean isLemma(int id, POS pos) {
+        int slot = id * PARTS.length + pos.ordinal();
+        return offsetStart.get(slot) < offsetStart.get(slot + 1);
+    }
+
+    /**
+     * Returns the synset offsets of the lemma.
+     *
+     * @param id  position of the lemma
+     * @param pos part of speech
+     * @return synset offsets in the order of the senses, empty if the string is not a lemma of the part of speech
+     */
+    public long[] getOffsets(int id, POS pos) {
+        int slot = id * PARTS.length + pos.ordinal();
+        int start = offsetStart.get(slot);
+        long[] result = new long[offsetStart.get(slot + 1) - start];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = offsets.get(start + i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the base forms of the exceptional derivation.
+     *
+     * @param id  position of the derivation
+     * @param pos part of speech
+     * @return base forms, empty if the string is not an exception of the part of speech
+     */
+    public List<String> getExceptions(int id, POS pos) {
+        int slot = id * PARTS.length + pos.ordinal();
+        int start = formStart.get(slot);
+        int end = formStart.get(slot + 1);
+        if (start == end) {
+            return Collections.emptyList();
+        }
+        List<String> result = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            result.add(strings.get(forms.get(i)));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the lemmas of all parts of speech which consist of several words.
+     *
+     * @return distinct multiwords, as token lists
+     */
+    public Set<List<String>> getMultiwords() {
+        Set<List<String>> result = new HashSet<>();
+        for (int id = 0; id < strings.size(); id++) {
+            if (offsetStart.get(id * PARTS.length) < offsetStart.get((id + 1) * PARTS.length)) {
+                String lemma = strings.get(id);
+                if (-1 < lemma.indexOf(' ')) {
+                    result.add(WordNet.split(lemma));
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -7,88 +7,173 @@ import net.sf.extjwnl.JWNLException;
 import net.sf.extjwnl.data.POS;
 import net.sf.extjwnl.data.PointerUtils;
 import net.sf.extjwnl.data.Synset;
+import net.sf.extjwnl.data.Word;
 import net.sf.extjwnl.data.list.PointerTargetNode;
 import net.sf.extjwnl.data.list.PointerTargetNodeList;
 import net.sf.extjwnl.data.list.PointerTargetTree;
+import net.sf.extjwnl.dictionary.Dictionary;
 
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collections;
 import java.util.List;
 
 /**
- * WordNet-based sense implementation.
+ * WordNet-based sense. A sense holds only the part of speech and the offset of its synset and resolves the synset
+ * from the dictionary when the gloss, the lemmas or the hierarchy are requested, so that large amounts of senses
+ * do not keep synsets with their words, pointers and glosses alive. The relation matchers need only the part of
+ * speech and the offset, therefore senses created without a dictionary work with them too.
+ * <p/>
+ * A serialized sense carries its synset. A deserialized sense resolves its synset from
+ * {@link Dictionary#getRestoreDictionary()}, the dictionary extJWNL restores its own elements into, and keeps
+ * the serialized synset when no restore dictionary is set. Deserialized senses are not linked to an oracle,
+ * so their parents and children are not cached.
  *
  * @author Mikalai Yatskevich mikalai.yatskevich@comlab.ox.ac.uk
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
 public class WordNetSense extends Sense implements Serializable {
 
-    private final Synset synset;
+    private static final long serialVersionUID = 1L;
+
+    private final POS pos;
+    private final long offset;
+
+    // resolves the synset, null for senses without a dictionary
+    private final transient Dictionary dictionary;
+    // synsets outside of a dictionary can not be resolved and are kept
+    private final transient Synset synset;
+
+    // caches the parents and children, null for standalone senses
+    private final transient WordNet oracle;
+
+    // lemmas, computed on first use
+    private transient volatile List<String> lemmas;
 
     /**
-     * Constructs an instance linked to a synset.
+     * Constructs an instance linked to a synset. The synset is resolved again from its dictionary when needed.
      *
      * @param synset synset
      */
     public WordNetSense(Synset synset) {
         super(synset.getPOS().getKey() + "#" + synset.getOffset());
-        this.synset = synset;
+        this.pos = synset.getPOS();
+        this.offset = synset.getOffset();
+        this.dictionary = synset.getDictionary();
+        this.synset = null == dictionary ? synset : null;
+        this.oracle = null;
+    }
+
+    /**
+     * Constructs an instance from the part of speech and the offset of a synset.
+     *
+     * @param pos        part of speech
+     * @param offset     synset offset
+     * @param dictionary dictionary to resolve the synset, null if only the offset and the part of speech are used
+     */
+    public WordNetSense(POS pos, long offset, Dictionary dictionary) {
+        this(pos, offset, dictionary, null);
+    }
+
+    /**
+     * Constructs an instance, whose parents and children are cached by the oracle.
+     *
+     * @param pos        part of speech
+     * @param offset     synset offset
+     * @param dictionary dictionary to resolve the synset
+     * @param oracle     oracle which owns the sense
+     */
+    WordNetSense(POS pos, long offset, Dictionary dictionary, WordNet oracle) {
+        super(pos.getKey() + "#" + offset);
+        this.pos = pos;
+        this.offset = offset;
+        this.dictionary = dictionary;
+        this.synset = null;
+        this.oracle = oracle;
     }
 
     public String getGloss() {
-        return synset.getGloss();
+        return getSynset().getGloss();
     }
 
+    /**
+     * Returns the lemmas of the synset. The lemmas are computed once, and each call returns a copy
+     * the caller may modify.
+     *
+     * @return list of lemmas
+     */
     public List<String> getLemmas() {
-        List<String> out = new ArrayList<>();
-
-        for (int i = 0; i < synset.getWords().size(); i++) {
-            out.add(synset.getWords().get(i).getLemma());
+        List<String> result = lemmas;
+        if (null == result) {
+            List<Word> words = getSynset().getWords();
+            List<String> out = new ArrayList<>(words.size());
+            for (Word word : words) {
+                out.add(word.getLemma());
+            }
+            result = Collections.unmodifiableList(out);
+            lemmas = result;
         }
-
-        return out;
+        return new ArrayList<>(result);
     }
 
     public List<ISense> getParents() throws LinguisticOracleException {
         return getParents(1);
     }
 
+    /**
+     * Returns the hypernyms of the synset up to the depth. The senses of an oracle cache the hypernyms,
+     * and each call returns a copy the caller may modify.
+     *
+     * @param depth depth
+     * @return hypernyms
+     * @throws LinguisticOracleException LinguisticOracleException
+     */
     public List<ISense> getParents(int depth) throws LinguisticOracleException {
-        List<ISense> out = new ArrayList<>();
-        try {
-            PointerTargetTree hypernyms = PointerUtils.getHypernymTree(synset, depth);
-            for (Iterator itr = hypernyms.toList().iterator(); itr.hasNext(); ) {
-                if (itr.hasNext()) {
-                    for (Object o : ((PointerTargetNodeList) itr.next())) {
-                        Synset t = ((PointerTargetNode) o).getSynset();
-                        if (!synset.equals(t)) {
-                            out.add(new WordNetSense(t));
-                        }
-                    }
-                }
-            }
-        } catch (JWNLException e) {
-            throw new LinguisticOracleException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+        if (null != oracle) {
+            return oracle.getRelatives(this, true, depth);
         }
-        return out;
+        return toSenses(getRelatives(getLinkedSynset(), true, depth));
     }
 
     public List<ISense> getChildren() throws LinguisticOracleException {
         return getChildren(1);
     }
 
+    /**
+     * Returns the hyponyms of the synset down to the depth. The senses of an oracle cache the hyponyms,
+     * and each call returns a copy the caller may modify.
+     *
+     * @param depth depth
+     * @return hyponyms
+     * @throws LinguisticOracleException LinguisticOracleException
+     */
     public List<ISense> getChildren(int depth) throws LinguisticOracleException {
-        List<ISense> out = new ArrayList<>();
+        if (null != oracle) {
+            return oracle.getRelatives(this, false, depth);
+        }
+        return toSenses(getRelatives(getLinkedSynset(), false, depth));
+    }
+
+    /**
+     * Returns the synsets of the hypernym or hyponym tree of the synset, in the order of the tree paths.
+     *
+     * @param synset  synset
+     * @param parents true for hypernyms, false for hyponyms
+     * @param depth   depth of the tree
+     * @return synsets of the tree, except the synset itself
+     * @throws LinguisticOracleException LinguisticOracleException
+     */
+    static List<Synset> getRelatives(Synset synset, boolean parents, int depth) throws LinguisticOracleException {
+        List<Synset> out = new ArrayList<>();
         try {
-            PointerTargetTree hypernyms = PointerUtils.getHyponymTree(synset, depth);
-            for (Iterator itr = hypernyms.toList().iterator(); itr.hasNext(); ) {
-                if (itr.hasNext()) {
-                    for (Object o : ((PointerTargetNodeList) itr.next())) {
-                        Synset t = ((PointerTargetNode) o).getSynset();
-                        if (!synset.equals(t)) {
-                            out.add(new WordNetSense(t));
-                        }
+            PointerTargetTree tree = parents ? PointerUtils.getHypernymTree(synset, depth) : PointerUtils.getHyponymTree(synset, depth);
+            for (Object path : tree.toList()) {
+                for (Object o : ((PointerTargetNodeList) path)) {
+                    Synset t = ((PointerTargetNode) o).getSynset();
+                    if (!synset.equals(t)) {
+                        out.add(t);
                     }
                 }
             }
@@ -98,15 +183,106 @@ public class WordNetSense extends Sense implements Serializable {
         return out;
     }
 
+    private static List<ISense> toSenses(List<Synset> synsets) {
+        List<ISense> out = new ArrayList<>(synsets.size());
+        for (Synset t : synsets) {
+            out.add(new WordNetSense(t));
+        }
+        return out;
+    }
+
     public POS getPOS() {
-        return synset.getPOS();
+        return pos;
     }
 
     public long getOffset() {
-        return synset.getOffset();
+        return offset;
     }
 
+    /**
+     * Returns the synset of the sense, resolved from the dictionary.
+     *
+     * @return synset
+     * @throws IllegalStateException if the sense has no dictionary or the synset can not be read,
+     *                               see {@link #findSynset()}
+     */
     public Synset getSynset() {
-        return synset;
+        try {
+            return findSynset();
+        } catch (JWNLException e) {
+            throw new IllegalStateException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the synset of the sense, resolved from the dictionary.
+     *
+     * @return synset
+     * @throws JWNLException if the sense has no dictionary or the synset can not be read
+     */
+    public Synset findSynset() throws JWNLException {
+        if (null != synset) {
+            return synset;
+        }
+        if (null == dictionary) {
+            throw new JWNLException("Sense without a dictionary: " + getId());
+        }
+        Synset result = dictionary.getSynsetAt(pos, offset);
+        if (null == result) {
+            throw new JWNLException("Synset not found: " + getId());
+        }
+        return result;
+    }
+
+    Synset getLinkedSynset() throws LinguisticOracleException {
+        try {
+            return findSynset();
+        } catch (JWNLException e) {
+            throw new LinguisticOracleException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Serializes the sense with its synset, if it can be resolved.
+     */
+    private Object writeReplace() {
+        Synset resolved;
+        try {
+            resolved = findSynset();
+        } catch (JWNLException | RuntimeException e) {
+            resolved = null;
+        }
+        return new SerializedSense(pos, offset, resolved);
+    }
+
+    private void readObject(ObjectInputStream in) throws InvalidObjectException {
+        throw new InvalidObjectException("Serialized form required");
+    }
+
+    /**
+     * Serialized form of a sense. A deserialized sense resolves its synset from the restore dictionary of extJWNL,
+     * as deserialized extJWNL elements do, or keeps the serialized synset when there is no restore dictionary.
+     */
+    private static class SerializedSense implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final POS pos;
+        private final long offset;
+        private final Synset synset;
+
+        private SerializedSense(POS pos, long offset, Synset synset) {
+            this.pos = pos;
+            this.offset = offset;
+            this.synset = synset;
+        }
+
+        private Object readResolve() {
+            Dictionary dictionary = Dictionary.getRestoreDictionary();
+            if (null == dictionary && null != synset) {
+                return new WordNetSense(synset);
+            }
+            return new WordNetSense(pos, offset, dictionary);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,142 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+import it.unitn.disi.smatch.SMatchException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the interval labelling against a brute-force closure of a synthetic hierarchy with multiple inheritance.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class IntervalKeySetTest {
+
+    private static final int NODES = 301;
+
+    private int[] offsets;
+    private int[] parents;
+    private long[] closure;
+
+    @Before
+    public void setUp() {
+        Random random = new Random(20141017L);
+        offsets = new int[NODES];
+        for (int i = 0; i < NODES; i++) {
+            offsets[i] = 1000 + 7 * i;
+        }
+
+        // each node but the roots has up to three parents among the earlier nodes, the first one spans the forest
+        List<Set<Integer>> hypernyms = new ArrayList<>();
+        parents = new int[NODES];
+        for (int i = 0; i < NODES; i++) {
+            Set<Integer> nodeHypernyms = new LinkedHashSet<>();
+            if (0 < i && 0 != i % 50) {
+                int count = 1 + random.nextInt(3);
+                for (int j = 0; j < count; j++) {
+                    nodeHypernyms.add(random.nextInt(i));
+                }
+            }
+            hypernyms.add(nodeHypernyms);
+            parents[i] = nodeHypernyms.isEmpty() ? -1 : nodeHypernyms.iterator().next();
+        }
+
+        Set<Long> keys = new TreeSet<>();
+        for (int i = 0; i < NODES; i++) {
+            Deque<Integer> stack = new ArrayDeque<>(hypernyms.get(i));
+            Set<Integer> ancestors = new HashSet<>();
+            while (!stack.isEmpty()) {
+                int ancestor = stack.pop();
+                if (ancestors.add(ancestor)) {
+                    stack.addAll(hypernyms.get(ancestor));
+                }
+            }
+            for (int ancestor : ancestors) {
+                keys.add(key(i, ancestor));
+            }
+        }
+        // pairs of other relations, such as holonymy, outside of the hierarchy
+        for (int i = 0; i < 20; i++) {
+            keys.add(key(random.nextInt(NODES), random.nextInt(NODES)));
+        }
+        closure = new long[keys.size()];
+        int i = 0;
+        for (long key : keys) {
+            closure[i++] = key;
+        }
+    }
+
+    @Test
+    public void testCreate() throws SMatchException {
+        IntervalKeySet keys = IntervalKeySet.create(offsets, parents, closure);
+        assertTrue(0 < keys.getExceptionCount());
+        assertTrue(closure.length > keys.getExceptionCount());
+        assertEquals(closure.length, keys.size());
+        assertSameAsClosure(keys);
+    }
+
+    @Test
+    public void testToKeys() throws SMatchException {
+        assertArrayEquals(closure, IntervalKeySet.create(offsets, parents, closure).toKeys());
+    }
+
+    @Test
+    public void testWriteRead() throws SMatchException, IOException {
+        IntervalKeySet keys = IntervalKeySet.create(offsets, parents, closure);
+        // mapped files can not be deleted on some platforms while the mapping is alive
+        File file = File.createTempFile("intervals", ".bin");
+        file.deleteOnExit();
+        keys.write(file.getPath());
+        IntervalKeySet read = IntervalKeySet.read(file.getPath());
+        assertEquals(keys.size(), read.size());
+        assertEquals(keys.getExceptionCount(), read.getExceptionCount());
+        assertSameAsClosure(read);
+        assertArrayEquals(closure, read.toKeys());
+    }
+
+    @Test
+    public void testUnknownKeys() throws SMatchException {
+        IntervalKeySet keys = IntervalKeySet.create(offsets, parents, closure);
+        assertFalse(keys.contains(-1L));
+        assertFalse(keys.contains(((long) offsets[1] << 32) + 999));
+        assertFalse(keys.contains((999L << 32) + offsets[0]));
+    }
+
+    @Test(expected = SMatchException.class)
+    public void testForestOutsideClosure() throws SMatchException {
+        IntervalKeySet.create(offsets, parents, Arrays.copyOf(closure, closure.length / 2));
+    }
+
+    @Test(expected = SMatchException.class)
+    public void testClosureOutsideHierarchy() throws SMatchException {
+        long[] outside = Arrays.copyOf(closure, closure.length + 1);
+        outside[closure.length] = ((long) Integer.MAX_VALUE << 32) + offsets[0];
+        IntervalKeySet.create(offsets, parents, outside);
+    }
+
+    @Test(expected = SMatchException.class)
+    public void testCycle() throws SMatchException {
+        // the first hypernym of node 1 is node 0
+        int[] cycle = parents.clone();
+        cycle[0] = 1;
+        IntervalKeySet.create(offsets, cycle, closure);
+    }
+
+    private void assertSameAsClosure(IntervalKeySet keys) {
+        for (int i = 0; i < NODES; i++) {
+            for (int j = 0; j < NODES; j++) {
+                long key = key(i, j);
+                assertEquals(offsets[i] + " < " + offsets[j], 0 <= Arrays.binarySearch(closure, key), keys.contains(key));
+            }
+        }
+    }
+
+    private long key(int source, int ancestor) {
+        return ((long) offsets[source] << 32) + offsets[ancestor];
+    }
+}
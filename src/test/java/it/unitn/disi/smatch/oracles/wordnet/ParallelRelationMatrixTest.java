@@ -0,0 +1,231 @@
+package it.unitn.disi.smatch.oracles.wordnet;
+
+import it.unitn.disi.smatch.data.ling.ISense;
+import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.oracles.ISenseMatcher;
+import it.unitn.disi.smatch.oracles.SenseMatcherException;
+import net.sf.extjwnl.data.POS;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the parallel relation matrix against sequential {@link ISenseMatcher#getRelation(List, List)} calls,
+ * with a synthetic matcher over synthetic senses.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class ParallelRelationMatrixTest {
+
+    private static final char[] RELATIONS = {IMappingElement.EQUIVALENCE, IMappingElement.LESS_GENERAL,
+            IMappingElement.MORE_GENERAL, IMappingElement.DISJOINT, IMappingElement.IDK};
+
+    // 1 splits down to single cells, 7 is odd, 1000 is larger than the grid
+    private static final int[] CHUNK_SIZES = {1, 7, 1000};
+
+    private static final int PARALLELISM = 4;
+
+    private List<List<ISense>> sources;
+    private List<List<ISense>> targets;
+
+    @Before
+    public void setUp() {
+        Random random = new Random(20141017L);
+        sources = createConcepts(random, 37);
+        targets = createConcepts(random, 23);
+    }
+
+    @Test
+    public void testMatcher() throws SenseMatcherException {
+        StubMatcher matcher = new StubMatcher();
+        char[][] expected = getRelations(matcher, sources, targets);
+        for (int chunkSize : CHUNK_SIZES) {
+            ParallelRelationMatrix matrix = new ParallelRelationMatrix(matcher, PARALLELISM, chunkSize);
+            try {
+                assertArrayEquals("chunk size " + chunkSize, expected, matrix.getRelations(sources, targets));
+            } finally {
+                matrix.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void testBatchMatcher() throws SenseMatcherException {
+        StubBatchMatcher matcher = new StubBatchMatcher();
+        char[][] expected = getRelations(matcher, sources, targets);
+        for (int chunkSize : CHUNK_SIZES) {
+            matcher.relationCalls.set(0);
+            matcher.batchCalls.set(0);
+            ParallelRelationMatrix matrix = new ParallelRelationMatrix(matcher, PARALLELISM, chunkSize);
+            try {
+                assertArrayEquals("chunk size " + chunkSize, expected, matrix.getRelations(sources, targets));
+            } finally {
+                matrix.shutdown();
+            }
+            assertEquals(0, matcher.relationCalls.get());
+            assertTrue(0 < matcher.batchCalls.get());
+        }
+    }
+
+    @Test
+    public void testEmpty() throws SenseMatcherException {
+        List<List<ISense>> empty = Collections.emptyList();
+        for (ISenseMatcher matcher : new ISenseMatcher[]{new StubMatcher(), new StubBatchMatcher()}) {
+            ParallelRelationMatrix matrix = new ParallelRelationMatrix(matcher, PARALLELISM, 7);
+            try {
+                assertEquals(0, matrix.getRelations(empty, targets).length);
+                char[][] relations = matrix.getRelations(sources, empty);
+                assertEquals(sources.size(), relations.length);
+                assertEquals(0, relations[0].length);
+            } finally {
+                matrix.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void testException() {
+        ISense failing = sources.get(sources.size() / 2).get(0);
+        for (ISenseMatcher matcher : new ISenseMatcher[]{new StubMatcher(failing), new StubBatchMatcher(failing)}) {
+            for (int chunkSize : CHUNK_SIZES) {
+                ParallelRelationMatrix matrix = new ParallelRelationMatrix(matcher, PARALLELISM, chunkSize);
+                try {
+                    matrix.getRelations(sources, targets);
+                    fail("Expected SenseMatcherException, chunk size " + chunkSize);
+                } catch (SenseMatcherException e) {
+                    assertEquals("Failing sense: " + failing, e.getMessage());
+                } finally {
+                    matrix.shutdown();
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testChunkSize() {
+        new ParallelRelationMatrix(new StubMatcher(), PARALLELISM, 0);
+    }
+
+    private static List<List<ISense>> createConcepts(Random random, int count) {
+        List<List<ISense>> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // concepts have from none to three senses
+            int senseCount = random.nextInt(4);
+            List<ISense> senses = new ArrayList<>(senseCount);
+            for (int j = 0; j < senseCount; j++) {
+                senses.add(new WordNetSense(POS.NOUN, random.nextInt(1000), null));
+            }
+            result.add(senses);
+        }
+        return result;
+    }
+
+    private static char[][] getRelations(ISenseMatcher matcher, List<List<ISense>> sources,
+                                         List<List<ISense>> targets) throws SenseMatcherException {
+        char[][] result = new char[sources.size()][targets.size()];
+        for (int i = 0; i < sources.size(); i++) {
+            for (int j = 0; j < targets.size(); j++) {
+                result[i][j] = matcher.getRelation(sources.get(i), targets.get(j));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Answers relations which depend on every sense of both concepts, and fails on a given sense.
+     */
+    private static class StubMatcher implements ISenseMatcher {
+
+        private final ISense failing;
+
+        private StubMatcher() {
+            this(null);
+        }
+
+        private StubMatcher(ISense failing) {
+            this.failing = failing;
+        }
+
+        public char getRelation(List<ISense> sourceSenses, List<ISense> targetSenses) throws SenseMatcherException {
+            long hash = 17;
+            for (ISense sense : sourceSenses) {
+                hash = 31 * hash + getOffset(sense);
+            }
+            for (ISense sense : targetSenses) {
+                hash = 37 * hash + getOffset(sense);
+            }
+            return RELATIONS[(int) ((hash & Long.MAX_VALUE) % RELATIONS.length)];
+        }
+
+        private long getOffset(ISense sense) throws SenseMatcherException {
+            if (sense.equals(failing)) {
+                throw new SenseMatcherException("Failing sense: " + sense);
+            }
+            return ((WordNetSense) sense).getOffset();
+        }
+
+        public boolean isSourceSynonymTarget(ISense source, ISense target) {
+            return false;
+        }
+
+        public boolean isSourceOppositeToTarget(ISense source, ISense target) {
+            return false;
+        }
+
+        public boolean isSourceMoreGeneralThanTarget(ISense source, ISense target) {
+            return false;
+        }
+
+        public boolean isSourceLessGeneralThanTarget(ISense source, ISense target) {
+            return false;
+        }
+    }
+
+    /**
+     * Answers the same relations as {@link StubMatcher} and counts the calls of each path.
+     */
+    private static class StubBatchMatcher extends StubMatcher implements IBatchSenseMatcher {
+
+        private final AtomicInteger relationCalls = new AtomicInteger();
+        private final AtomicInteger batchCalls = new AtomicInteger();
+
+        private StubBatchMatcher() {
+            super();
+        }
+
+        private StubBatchMatcher(ISense failing) {
+            super(failing);
+        }
+
+        @Override
+        public char getRelation(List<ISense> sourceSenses, List<ISense> targetSenses) throws SenseMatcherException {
+            relationCalls.incrementAndGet();
+            return super.getRelation(sourceSenses, targetSenses);
+        }
+
+        public char[][] getRelations(List<List<ISense>> sourceSenses, List<List<ISense>> targetSenses) throws SenseMatcherException {
+            char[][] result = new char[sourceSenses.size()][targetSenses.size()];
+            getRelations(sourceSenses, targetSenses, result, 0, result.length);
+            return result;
+        }
+
+        public void getRelations(List<List<ISense>> sourceSenses, List<List<ISense>> targetSenses,
+                                 char[][] relations, int fromRow, int toRow) throws SenseMatcherException {
+            batchCalls.incrementAndGet();
+            // the rows are filled in place in the shared matrix
+            assertEquals(sourceSenses.size(), relations.length);
+            for (int i = fromRow; i < toRow; i++) {
+                for (int j = 0; j < targetSenses.size(); j++) {
+                    relations[i][j] = super.getRelation(sourceSenses.get(i), targetSenses.get(j));
+                }
+            }
+        }
+    }
+}